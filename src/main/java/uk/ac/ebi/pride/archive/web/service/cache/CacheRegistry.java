@@ -0,0 +1,59 @@
+package uk.ac.ebi.pride.archive.web.service.cache;
+
+import com.google.common.cache.Cache;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the result caches used by the web service, so their
+ * statistics can be reported and their content invalidated in one place.
+ *
+ * Note: this is defined in the root application context, so caches of both
+ * the service and the web layer can register with it.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class CacheRegistry {
+
+    private final Map<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param name a unique name for the cache.
+     * @param cache the cache to register, should be built with statistics recording enabled.
+     * @return the registered cache.
+     */
+    public <K, V> Cache<K, V> register(String name, Cache<K, V> cache) {
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("A cache with name " + name + " is already registered!");
+        }
+        return cache;
+    }
+
+    /**
+     * @return the statistics of all registered caches, by cache name.
+     */
+    public Map<String, CacheStatistics> getStatistics() {
+        Map<String, CacheStatistics> statistics = new TreeMap<>();
+        for (Map.Entry<String, Cache<?, ?>> entry : caches.entrySet()) {
+            statistics.put(entry.getKey(), new CacheStatistics(entry.getValue()));
+        }
+        return statistics;
+    }
+
+    /**
+     * @param name the name of the cache to empty.
+     * @return true if a cache with the given name exists, false otherwise.
+     */
+    public boolean invalidate(String name) {
+        Cache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            return false;
+        }
+        cache.invalidateAll();
+        return true;
+    }
+
+}
@@ -0,0 +1,62 @@
+package uk.ac.ebi.pride.archive.web.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the statistics of a cache.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class CacheStatistics {
+
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final double hitRate;
+    private final long loadCount;
+    private final long evictionCount;
+    private final double averageLoadMillis;
+
+    public CacheStatistics(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        this.size = cache.size();
+        this.hitCount = stats.hitCount();
+        this.missCount = stats.missCount();
+        this.hitRate = stats.hitRate();
+        this.loadCount = stats.loadCount();
+        this.evictionCount = stats.evictionCount();
+        this.averageLoadMillis = stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public double getAverageLoadMillis() {
+        return averageLoadMillis;
+    }
+}
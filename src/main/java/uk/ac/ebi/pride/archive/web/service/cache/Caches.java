@@ -0,0 +1,45 @@
+package uk.ac.ebi.pride.archive.web.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Helper methods for working with caches.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public final class Caches {
+
+    private Caches() {}
+
+    /**
+     * Returns the cached value for the key, or loads it with the provided loader.
+     * Concurrent requests for the same missing key wait for a single load (single-flight),
+     * instead of all hitting the backend. Exceptions of the loader are re-thrown unwrapped.
+     *
+     * @param cache the cache to use.
+     * @param key the key of the value.
+     * @param loader the loader for the value, must not return null.
+     * @return the cached or freshly loaded value.
+     */
+    public static <K, V> V get(Cache<K, V> cache, K key, Callable<? extends V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Could not load value for key: " + key, cause);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package uk.ac.ebi.pride.archive.web.service.cache;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reports the statistics of the Hibernate second-level cache regions (see ehcache.xml) and
+ * allows to evict them, e.g. after records have been updated outside of this web service.
+ * The project, assay and file regions expire within a minute, but they should still be evicted
+ * (DELETE /cache/entity) right after a publication so the new public flags are used at once.
+ *
+ * Note: this is defined in the database application context.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class EntityCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheService.class);
+
+    private final SessionFactory sessionFactory;
+
+    public EntityCacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory();
+    }
+
+    /**
+     * @return the statistics of all second-level cache regions, by region name.
+     */
+    public Map<String, EntityCacheStatistics> getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, EntityCacheStatistics> regions = new TreeMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            regions.put(region, new EntityCacheStatistics(statistics.getSecondLevelCacheStatistics(region)));
+        }
+        return regions;
+    }
+
+    /**
+     * @param region the name of an entity region.
+     * @return true if the region exists, false otherwise.
+     */
+    public boolean evict(String region) {
+        Cache cache = sessionFactory.getCache();
+        boolean found = false;
+        for (String entityName : sessionFactory.getAllClassMetadata().keySet()) {
+            EntityPersister persister = ((SessionFactoryImplementor) sessionFactory).getEntityPersister(entityName);
+            if (persister.hasCache() && persister.getCacheAccessStrategy().getRegion().getName().equals(region)) {
+                cache.evictEntityRegion(entityName);
+                found = true;
+            }
+        }
+        if (found) {
+            logger.info("Second-level cache region " + region + " has been evicted");
+        }
+        return found;
+    }
+
+    /**
+     * Empties all second-level cache regions.
+     */
+    public void evictAll() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityRegions();
+        cache.evictCollectionRegions();
+        logger.info("All second-level cache regions have been evicted");
+    }
+
+}
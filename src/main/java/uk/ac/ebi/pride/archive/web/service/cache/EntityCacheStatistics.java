@@ -0,0 +1,53 @@
+package uk.ac.ebi.pride.archive.web.service.cache;
+
+import org.hibernate.stat.SecondLevelCacheStatistics;
+
+/**
+ * Snapshot of the statistics of a second-level cache region.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class EntityCacheStatistics {
+
+    private final long size;
+    private final long sizeInMemory;
+    private final long hitCount;
+    private final long missCount;
+    private final double hitRate;
+    private final long putCount;
+
+    public EntityCacheStatistics(SecondLevelCacheStatistics statistics) {
+        this.size = statistics.getElementCountInMemory();
+        this.sizeInMemory = statistics.getSizeInMemory();
+        this.hitCount = statistics.getHitCount();
+        this.missCount = statistics.getMissCount();
+        long requestCount = hitCount + missCount;
+        this.hitRate = requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+        this.putCount = statistics.getPutCount();
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getSizeInMemory() {
+        return sizeInMemory;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+}
@@ -16,6 +16,7 @@ import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
 import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
 import uk.ac.ebi.pride.archive.security.assay.AssaySecureService;
 import uk.ac.ebi.pride.archive.security.project.ProjectSecureService;
+import uk.ac.ebi.pride.archive.web.service.controller.project.ProjectReadModel;
 import uk.ac.ebi.pride.archive.web.service.error.exception.ResourceNotFoundException;
 import uk.ac.ebi.pride.archive.web.service.model.assay.AssayAccessionComparator;
 import uk.ac.ebi.pride.archive.web.service.model.assay.AssayDetail;
@@ -43,6 +44,8 @@ public class AssayController {
     private AssaySecureService assayService;
     @Autowired
     private ProjectSecureService projectService;
+    @Autowired
+    private ProjectReadModel projectReadModel;
 
     @ApiOperation(value = "retrieve assay information by accession", position = 1)
     @RequestMapping(value = "/{assayAccession}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -52,7 +55,13 @@ public class AssayController {
     AssayDetail findAllByAssayAccession(
             @ApiParam(value = "an assay accession number (example: 22134)")
             @PathVariable("assayAccession") String assayAccession) {
-        logger.info("Assay " + assayAccession + " summary requested");
+        logger.debug("Assay {} summary requested", assayAccession);
+
+        // assays of published projects are accessible to everyone, so their prebuilt documents can be served without access check
+        AssayDetail document = projectReadModel.getAssay(assayAccession);
+        if (document != null) {
+            return document;
+        }
 
         AssaySummary assaySummary;
         try {
@@ -81,7 +90,12 @@ public class AssayController {
             @ApiParam(value = "a project accession number (example: PXD000001)")
             @PathVariable("projectAccession") String accession) {
 
-        logger.info("Assay list required for project " + accession);
+        logger.debug("Assay list required for project {}", accession);
+
+        List<AssayDetail> documents = projectReadModel.getProjectAssays(accession);
+        if (documents != null) {
+            return new AssayDetailList(documents);
+        }
 
         // first check that the project exists, to evaluate if the request for assays is justified
         ProjectSummary projectSummary = projectService.findByAccession(accession);
@@ -116,10 +130,10 @@ public class AssayController {
             @ApiParam(value = "a project accession number (example: PXD000001)")
             @PathVariable("projectAccession") String accession) {
 
-        logger.info("Assay count required for project " + accession);
+        logger.debug("Assay count required for project {}", accession);
 
         Long assayCount = assayService.countByProjectAccession(accession);
-        logger.debug("Retrieved " + assayCount +" assays for project " + accession);
+        logger.debug("Retrieved {} assays for project {}", assayCount, accession);
         return assayCount;
     }
 
@@ -0,0 +1,133 @@
+package uk.ac.ebi.pride.archive.web.service.controller.cache;
+
+import com.mangofactory.swagger.annotations.ApiIgnore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheStatistics;
+import uk.ac.ebi.pride.archive.web.service.cache.EntityCacheService;
+import uk.ac.ebi.pride.archive.web.service.cache.EntityCacheStatistics;
+import uk.ac.ebi.pride.archive.web.service.controller.file.FileCountCache;
+import uk.ac.ebi.pride.archive.web.service.controller.file.FileListCache;
+import uk.ac.ebi.pride.archive.web.service.controller.project.ProjectAggregateCache;
+import uk.ac.ebi.pride.archive.web.service.controller.project.ProjectReadModel;
+import uk.ac.ebi.pride.archive.web.service.controller.project.UserProjectCache;
+import uk.ac.ebi.pride.archive.web.service.error.exception.ResourceNotFoundException;
+import uk.ac.ebi.pride.archive.web.service.security.CachingAuthenticationProvider;
+
+import java.util.Map;
+
+/**
+ * Reports the usage statistics (size, hit rate, etc) of the web service caches and of the
+ * second-level entity cache and allows administrators to invalidate them (see the security configuration).
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Controller
+@ApiIgnore
+@RequestMapping("/cache")
+public class CacheController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheController.class);
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+
+    @Autowired
+    private UserProjectCache userProjectCache;
+
+    @Autowired
+    private FileListCache fileListCache;
+
+    @Autowired
+    private FileCountCache fileCountCache;
+
+    @Autowired
+    private ProjectReadModel projectReadModel;
+
+    @Autowired
+    private ProjectAggregateCache projectAggregateCache;
+
+    @ApiIgnore
+    @RequestMapping(value = "/stats", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public
+    @ResponseBody
+    Map<String, CacheStatistics> getCacheStatistics() {
+        return cacheRegistry.getStatistics();
+    }
+
+    @ApiIgnore
+    @RequestMapping(value = "/entity/stats", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public
+    @ResponseBody
+    Map<String, EntityCacheStatistics> getEntityCacheStatistics() {
+        return entityCacheService.getStatistics();
+    }
+
+    @ApiIgnore
+    @RequestMapping(value = "/entity", method = RequestMethod.DELETE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evictEntityCache(@RequestParam(value = "region", required = false) String region) {
+        if (region == null) {
+            entityCacheService.evictAll();
+        } else if (!entityCacheService.evict(region)) {
+            throw new ResourceNotFoundException("No second-level cache region found with name: " + region);
+        }
+    }
+
+    @ApiIgnore
+    @RequestMapping(value = "/{cacheName}", method = RequestMethod.DELETE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void invalidateCache(@PathVariable("cacheName") String cacheName) {
+        if (!cacheRegistry.invalidate(cacheName)) {
+            throw new ResourceNotFoundException("No cache found with name: " + cacheName);
+        }
+        logger.info("Cache " + cacheName + " has been invalidated");
+    }
+
+    /**
+     * Drops everything cached for a user, e.g. after the password or the projects of the user changed.
+     */
+    @ApiIgnore
+    @RequestMapping(value = "/user", method = RequestMethod.DELETE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void invalidateUser(@RequestParam(value = "email") String userEmail) {
+        cachingAuthenticationProvider.invalidate(userEmail);
+        userProjectCache.invalidate(userEmail);
+        logger.info("Cached data of user " + userEmail + " has been invalidated");
+    }
+
+    /**
+     * Drops everything cached for a project, e.g. after the project has been (re-)published or files or assays have been added.
+     */
+    @ApiIgnore
+    @RequestMapping(value = "/project", method = RequestMethod.DELETE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void invalidateProject(@RequestParam(value = "accession") String projectAccession) {
+        fileListCache.invalidateProject(projectAccession);
+        fileCountCache.invalidateProject(projectAccession);
+        projectReadModel.evict(projectAccession);
+        projectAggregateCache.invalidate(projectAccession);
+        logger.info("Cached data of project " + projectAccession + " has been invalidated");
+    }
+
+}
@@ -5,28 +5,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
-import uk.ac.ebi.pride.archive.repo.file.service.FileSummary;
-import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
-import uk.ac.ebi.pride.archive.security.file.FileSecureService;
-import uk.ac.ebi.pride.archive.security.project.ProjectSecureService;
-import uk.ac.ebi.pride.archive.web.service.controller.file.FileController;
-import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
-import uk.ac.ebi.pride.archive.web.service.model.file.FileDetailList;
-import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
 import uk.ac.ebi.pride.archive.utils.config.FilePathBuilder;
 import uk.ac.ebi.pride.archive.utils.streaming.FileUtils;
 
-import java.io.File;
-import java.net.URL;
-import java.util.Collection;
+import java.util.List;
 
 /**
- * Health check for the web service, to be used by nagios
+ * Health check for the web service, to be used by nagios, load balancers and container orchestration
  *
  * @author Rui Wang
  * @author Florian Reisinger
@@ -37,8 +28,6 @@ import java.util.Collection;
 @RequestMapping("/check")
 public class CheckController {
 
-    private static final String TEST_PROJECT_ACCESSION = "PXD000001";
-
     @Value("#{buildConfig['prider.ws.project.name']}")
     private String projectName;
 
@@ -58,10 +47,7 @@ public class CheckController {
     private String fileLocationPrefix;
 
     @Autowired
-    private ProjectSecureService projectService;
-
-    @Autowired
-    private FileController fileController;
+    private HealthProber healthProber;
 
     @Autowired
     private FileUtils fileUtils;
@@ -69,6 +55,10 @@ public class CheckController {
     @Autowired
     private FilePathBuilder filePathBuilder;
 
+    /**
+     * Reports the latest results of the background health probes (see {@link HealthProber}),
+     * this does not query any backend.
+     */
     @ApiIgnore
     @RequestMapping(method = RequestMethod.GET, produces = MediaType.TEXT_PLAIN_VALUE)
     @ResponseStatus(HttpStatus.OK)
@@ -76,15 +66,20 @@ public class CheckController {
     public String healthCheck() {
         StringBuilder builder = new StringBuilder();
 
-        // check overall health
-        boolean projectHealthy = testProjectQuery();
-        boolean projectFileDownloadHealthy = testQueryForProjectFile();
-
         String lineSeparator = System.getProperty("line.separator");
 
-        builder.append("Overall Check: ").append(projectHealthy && projectFileDownloadHealthy).append(lineSeparator);
-        builder.append("Project Query Check: ").append(projectHealthy).append(lineSeparator);
-        builder.append("Project File Download Check: ").append(projectFileDownloadHealthy).append(lineSeparator);
+        // check overall health
+        builder.append("Overall Check: ").append(healthProber.isReady()).append(lineSeparator);
+
+        // latest result for each backend dependency
+        for (DependencyHealth dependency : healthProber.getResults()) {
+            builder.append("Dependency Check ").append(dependency.getName()).append(": ").append(dependency.isHealthy())
+                    .append(" (").append(dependency.getLatencyMillis()).append(" ms");
+            if (dependency.getMessage() != null) {
+                builder.append(", ").append(dependency.getMessage());
+            }
+            builder.append(")").append(lineSeparator);
+        }
 
         // project name
         builder.append("Project Name: ").append(projectName).append(lineSeparator);
@@ -104,49 +99,28 @@ public class CheckController {
         return builder.toString();
     }
 
-    private boolean testProjectQuery() {
-        try {
-            ProjectSummary projectSummary = projectService.findByAccession(TEST_PROJECT_ACCESSION);
-            if (projectSummary == null) { return false; }
-            if ( !projectSummary.getAccession().equalsIgnoreCase(TEST_PROJECT_ACCESSION) ) { return false; }
-            ObjectMapper.mapProjectSummary2WSProjectDetail(projectSummary, null);
-            // if there was no exception trying to map the search result, then we assume all is OK
-            return true;
-        } catch (Exception ex) {
-            return false;
+    /**
+     * Liveness check: the web service is up and handles requests, regardless of the state of its backends.
+     */
+    @ApiIgnore
+    @RequestMapping(value = "/live", method = RequestMethod.GET, produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public ResponseEntity<String> liveness() {
+        if (!healthProber.isRunning()) {
+            return new ResponseEntity<>("Health prober stopped", HttpStatus.SERVICE_UNAVAILABLE);
         }
+        return new ResponseEntity<>("OK", HttpStatus.OK);
     }
 
-    private boolean testQueryForProjectFile() {
-        try {
-            // retrieve the file records for the test project
-            FileDetailList projectFiles = fileController.getFilesByProjectAccession(TEST_PROJECT_ACCESSION);
-            if (projectFiles == null || projectFiles.getList() == null || projectFiles.getList().isEmpty()) { return false; }
-
-            // get the first file to run some more checks
-            FileDetail fileDetail = projectFiles.getList().iterator().next();
-
-            // there has to be a non-empty file name
-            String fileName = fileDetail.getFileName();
-            if (fileName == null || fileName.trim().isEmpty()) { return false; }
-
-            // there has to be a download URL (since we are testing a public project)
-            URL fileUrl = fileDetail.getDownloadLink();
-            if (fileUrl == null) { return false; }
-
-            // the download URL has to end in the file name
-            String fileString = fileUrl.getFile();
-            if (fileString == null || !fileString.endsWith(fileName)) { return false; }
-
-            // we don't test if the file is actually available at the provided URL
-
-            // if all checks passed and there is no exception, we assume all is OK
-            return true;
-
-        } catch (Exception ex) {
-            return false;
-        }
+    /**
+     * Readiness check: all critical backends have been found healthy by their latest probe.
+     */
+    @ApiIgnore
+    @RequestMapping(value = "/ready", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<List<DependencyHealth>> readiness() {
+        HttpStatus status = healthProber.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return new ResponseEntity<>(healthProber.getResults(), status);
     }
 
-
 }
@@ -0,0 +1,59 @@
+package uk.ac.ebi.pride.archive.web.service.controller.check;
+
+import java.util.Date;
+
+/**
+ * The result of the last health probe of a backend dependency of the web service.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class DependencyHealth {
+
+    private final String name;
+    private final boolean critical;
+    private final boolean healthy;
+    private final long latencyMillis;
+    private final Date checkedAt;
+    private final String message;
+
+    public DependencyHealth(String name, boolean critical, boolean healthy, long latencyMillis, Date checkedAt, String message) {
+        this.name = name;
+        this.critical = critical;
+        this.healthy = healthy;
+        this.latencyMillis = latencyMillis;
+        this.checkedAt = checkedAt;
+        this.message = message;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if the web service can not serve requests without this dependency, false if it only degrades
+     *         (e.g. the rate limiter).
+     */
+    public boolean isCritical() {
+        return critical;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public Date getCheckedAt() {
+        return checkedAt;
+    }
+
+    /**
+     * @return the reason of a failed probe, null for a successful one.
+     */
+    public String getMessage() {
+        return message;
+    }
+}
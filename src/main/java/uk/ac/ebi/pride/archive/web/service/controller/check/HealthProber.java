@@ -0,0 +1,252 @@
+package uk.ac.ebi.pride.archive.web.service.controller.check;
+
+import com.mongodb.CommandResult;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.response.SolrPingResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import uk.ac.ebi.pride.archive.web.service.interceptor.RedisClusterProvider;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Probes the backend dependencies of the web service (Oracle, the Solr cores, MongoDB and Redis)
+ * in the background and keeps the latest result of each, so health check requests can be answered
+ * without putting any load on the backends and without waiting for a slow backend.
+ *
+ * The dependencies are probed independently and in parallel, each with a timeout. A probe that
+ * does not finish in time is reported as failed and is not started again until it finishes, so
+ * a hanging backend does not tie up more and more threads. The probes run on their own threads,
+ * so they are not delayed by other scheduled jobs.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class HealthProber {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthProber.class);
+
+    private static final int PROBE_INTERVAL_SECONDS = 30;
+    private static final int PROBE_TIMEOUT_SECONDS = 10;
+    // results older than this are outdated, e.g. because the prober stopped working
+    private static final long MAX_RESULT_AGE_MILLIS = 3 * PROBE_INTERVAL_SECONDS * 1000L;
+
+    @Autowired
+    @Qualifier("priderDataSource")
+    private DataSource dataSource;
+
+    // all configured Solr cores, by bean name
+    @Autowired(required = false)
+    private Map<String, SolrServer> solrServers = Collections.emptyMap();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RedisClusterProvider redisClusterProvider;
+
+    private final List<Probe> probes = new ArrayList<>();
+    private final Map<String, DependencyHealth> results = new ConcurrentSkipListMap<>();
+    private final Map<String, Future<DependencyHealth>> runningProbes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService probeExecutor;
+
+    @PostConstruct
+    public void start() {
+        probes.add(new Probe("oracle", true) {
+            @Override
+            void check() throws Exception {
+                try (Connection connection = dataSource.getConnection()) {
+                    if (!connection.isValid(PROBE_TIMEOUT_SECONDS)) {
+                        throw new IllegalStateException("Database connection is not valid");
+                    }
+                }
+            }
+        });
+        for (final Map.Entry<String, SolrServer> solrServer : new TreeMap<>(solrServers).entrySet()) {
+            probes.add(new Probe("solr-" + solrServer.getKey(), true) {
+                @Override
+                void check() throws Exception {
+                    SolrPingResponse response = solrServer.getValue().ping();
+                    if (response.getStatus() != 0) {
+                        throw new IllegalStateException("Solr ping returned status " + response.getStatus());
+                    }
+                }
+            });
+        }
+        probes.add(new Probe("mongo", true) {
+            @Override
+            void check() {
+                CommandResult result = mongoTemplate.executeCommand("{ ping: 1 }");
+                if (!result.ok()) {
+                    throw new IllegalStateException("MongoDB ping failed: " + result.getErrorMessage());
+                }
+            }
+        });
+        // the rate limiter lets requests pass if Redis is not available
+        probes.add(new Probe("redis", false) {
+            @Override
+            void check() {
+                Map<String, JedisPool> nodes = redisClusterProvider.getJedisCluster().getClusterNodes();
+                if (nodes.isEmpty()) {
+                    throw new IllegalStateException("No Redis cluster nodes available");
+                }
+                for (Map.Entry<String, JedisPool> node : nodes.entrySet()) {
+                    try (Jedis jedis = node.getValue().getResource()) {
+                        jedis.ping();
+                    } catch (RuntimeException e) {
+                        throw new IllegalStateException("Redis node " + node.getKey() + " failed: " + e.getMessage(), e);
+                    }
+                }
+            }
+        });
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("health-prober"));
+        probeExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("health-probe"));
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                probeAll();
+            }
+        }, 0, PROBE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+
+    /**
+     * @return the latest probe result of each dependency, sorted by dependency name.
+     *         Dependencies that have not been probed yet are missing.
+     */
+    public List<DependencyHealth> getResults() {
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * @return true if all critical dependencies have been found healthy by their latest (and recent) probe.
+     */
+    public boolean isReady() {
+        long oldestValid = System.currentTimeMillis() - MAX_RESULT_AGE_MILLIS;
+        for (Probe probe : probes) {
+            if (!probe.critical) {
+                continue;
+            }
+            DependencyHealth result = results.get(probe.name);
+            if (result == null || !result.isHealthy() || result.getCheckedAt().getTime() < oldestValid) {
+                return false;
+            }
+        }
+        return !probes.isEmpty();
+    }
+
+    /**
+     * @return true if the probes are still being run (the results are kept up to date).
+     */
+    public boolean isRunning() {
+        return scheduler != null && !scheduler.isShutdown();
+    }
+
+    void probeAll() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PROBE_TIMEOUT_SECONDS);
+        Map<Probe, Future<DependencyHealth>> started = new LinkedHashMap<>();
+        for (final Probe probe : probes) {
+            Future<DependencyHealth> previous = runningProbes.get(probe.name);
+            if (previous != null && !previous.isDone()) {
+                // the result of the timed out probe has been recorded already
+                logger.warn("Health probe of " + probe.name + " is still running, skipping it");
+                continue;
+            }
+            Future<DependencyHealth> future = probeExecutor.submit(new Callable<DependencyHealth>() {
+                @Override
+                public DependencyHealth call() {
+                    return probe.run();
+                }
+            });
+            runningProbes.put(probe.name, future);
+            started.put(probe, future);
+        }
+
+        for (Map.Entry<Probe, Future<DependencyHealth>> entry : started.entrySet()) {
+            Probe probe = entry.getKey();
+            DependencyHealth result;
+            try {
+                result = entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                result = new DependencyHealth(probe.name, probe.critical, false, TimeUnit.SECONDS.toMillis(PROBE_TIMEOUT_SECONDS),
+                        new Date(), "No response within " + PROBE_TIMEOUT_SECONDS + " seconds");
+            } catch (ExecutionException e) {
+                // not expected, as the probes catch their exceptions
+                result = new DependencyHealth(probe.name, probe.critical, false, 0, new Date(), String.valueOf(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            DependencyHealth previous = results.put(probe.name, result);
+            if (!result.isHealthy() && (previous == null || previous.isHealthy())) {
+                logger.warn("Health probe of " + probe.name + " failed: " + result.getMessage());
+            } else if (result.isHealthy() && previous != null && !previous.isHealthy()) {
+                logger.info("Health probe of " + probe.name + " succeeded again");
+            }
+        }
+    }
+
+    /**
+     * A health check of a dependency, which fails by throwing an exception.
+     */
+    private abstract static class Probe {
+        private final String name;
+        private final boolean critical;
+
+        private Probe(String name, boolean critical) {
+            this.name = name;
+            this.critical = critical;
+        }
+
+        abstract void check() throws Exception;
+
+        private DependencyHealth run() {
+            long start = System.nanoTime();
+            String message = null;
+            try {
+                check();
+            } catch (Exception e) {
+                message = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+            }
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new DependencyHealth(name, critical, message == null, latencyMillis, new Date(), message);
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
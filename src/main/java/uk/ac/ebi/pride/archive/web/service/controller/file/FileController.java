@@ -9,9 +9,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.social.InternalServerErrorException;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileSource;
+import uk.ac.ebi.pride.archive.repo.assay.service.AssayAccessException;
 import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
 import uk.ac.ebi.pride.archive.repo.file.service.FileSummary;
 import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
@@ -20,15 +22,15 @@ import uk.ac.ebi.pride.archive.security.file.FileSecureService;
 import uk.ac.ebi.pride.archive.security.project.ProjectSecureService;
 import uk.ac.ebi.pride.archive.utils.config.FilePathBuilder;
 import uk.ac.ebi.pride.archive.utils.streaming.FileUtils;
+import uk.ac.ebi.pride.archive.web.service.error.exception.InvalidDataException;
+import uk.ac.ebi.pride.archive.web.service.error.exception.MaxPageSizeReachedException;
 import uk.ac.ebi.pride.archive.web.service.error.exception.ResourceNotFoundException;
-import uk.ac.ebi.pride.archive.web.service.model.file.DefaultFileComparator;
 import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
 import uk.ac.ebi.pride.archive.web.service.model.file.FileDetailList;
-import uk.ac.ebi.pride.archive.web.service.util.IdMapper;
-import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.*;
 
 /**
@@ -43,8 +45,7 @@ public class FileController {
 
     private static final Logger logger = LoggerFactory.getLogger(FileController.class);
 
-    @Autowired
-    private FileSecureService fileService;
+    private static final int MAX_MANIFEST_PROJECTS = 1000;
 
     @Autowired
     private ProjectSecureService projectService;
@@ -52,6 +53,18 @@ public class FileController {
     @Autowired
     private AssaySecureService assayService;
 
+    @Autowired
+    private FileSecureService fileService;
+
+    @Autowired
+    private FileDetailBuilder fileDetailBuilder;
+
+    @Autowired
+    private FileListCache fileListCache;
+
+    @Autowired
+    private FileCountCache fileCountCache;
+
     @Autowired
     private FileUtils fileUtils;
 
@@ -61,18 +74,6 @@ public class FileController {
     @Value("#{fileConfig['file.location.prefix']}")
     private String fileLocationPrefix;
 
-    @Value("#{fileConfig['ftp.domain']}")
-    private String ftpDomain;
-    private URL ftpDomainUrl;
-
-    @Value("#{fileConfig['ftp.public.base.path']}")
-    private String ftpPublicRoot;
-    @Value("#{fileConfig['ftp.private.base.path']}")
-    private String ftpPrivateRoot;
-    @Value("#{fileConfig['aspera.download.link.prefix']}")
-    private String asperaLinkPrefix;
-    private String httpPrivateRoot = "http://www.ebi.ac.uk/pride/archive/files/";
-
     @ApiOperation(value = "list files for a project", position = 1)
     @RequestMapping(value = "/list/project/{projectAccession}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.OK)
@@ -87,38 +88,7 @@ public class FileController {
             throw new ResourceNotFoundException("No project found for accession: " + projectAccession);
         }
 
-        // Note: for a correct file mapping assay and project accessions are needed, which are not available
-        //       from the FileSummary object. Therefore the IdMapper singleton needs to be updated for each
-        //       assay/project to be used by the ObjectMapper.
-        updateProjectAccCache(projectSummary.getId(), projectSummary.getAccession());
-        Collection<FileSummary> fileSummaries = fileService.findAllByProjectAccession(projectAccession);
-
-        if (fileSummaries == null || fileSummaries.isEmpty()) {
-            throw new ResourceNotFoundException("No files found for project: " + projectAccession);
-        }
-        updateAssayAccCache(fileSummaries);
-
-        List<FileDetail> fileDetails = ObjectMapper.mapFileSummariesToWSFileDetails(fileSummaries);
-
-        if (projectSummary.isPublicProject()) {
-            URL url = buildPublicFtpUrlForProject(projectSummary.getAccession(), projectSummary.getPublicationDate());
-            addDownloadableUrls(fileDetails, url);
-        } else {
-            // now there is no private path, so we don't add any FTP links
-            // we can only use the http streaming method currently provided by the web
-            addPrivateFileUrls(fileDetails, fileSummaries);
-
-            // we probably need/want user specific private locations, so we retrieve data from the security context
-//            Authentication a = SecurityContextHolder.getContext().getAuthentication();
-//            UserDetails currentUser = (UserDetails)a.getPrincipal();
-//            // add private URLs for the project files
-//            ftpPath = buildPrivateFtpPathForProject(projectSummary.getAccession(), currentUser.getUsername());
-//            addDownloadableUrls(fileDetails, ftpPath);
-        }
-
-        Collections.sort(fileDetails, new DefaultFileComparator());
-
-        return new FileDetailList(fileDetails);
+        return new FileDetailList(fileListCache.getProjectFiles(projectSummary));
     }
 
     @ApiOperation(value = "count files for a project", position = 2)
@@ -135,19 +105,8 @@ public class FileController {
             throw new ResourceNotFoundException("No project found for accession: " + projectAccession);
         }
 
-        // Note: for a correct file mapping assay and project accessions are needed, which are not available
-        //       from the FileSummary object. Therefore the IdMapper singleton needs to be updated for each
-        //       assay/project to be used by the ObjectMapper.
-        updateProjectAccCache(projectSummary.getId(), projectSummary.getAccession());
-        // ToDo: add count method to file service
-        Collection<FileSummary> fileSummaries = fileService.findAllByProjectAccession(projectAccession);
-
-        if (fileSummaries == null || fileSummaries.isEmpty()) {
-            throw new ResourceNotFoundException("No files found for project: " + projectAccession);
-        }
-
-        // count the files taking criteria like FileSource into account
-        return countFiles(fileSummaries);
+        Map<ProjectFileSource, Long> fileCounts = fileCountCache.countByProjectAccession(projectAccession, projectSummary.isPublicProject());
+        return countSubmittedFiles(fileCounts, "No files found for project: " + projectAccession);
     }
 
 
@@ -160,45 +119,9 @@ public class FileController {
             @ApiParam(value = "an assay accession number (example: 22134)")
             @PathVariable("assayAccession") String assayAccession) throws MalformedURLException {
 
-        // find the files for the provided assay accession
-        Collection<FileSummary> fileSummaries = fileService.findAllByAssayAccession(assayAccession);
-        if (fileSummaries == null || fileSummaries.isEmpty()) {
-            throw new ResourceNotFoundException("No files found for assay: " + assayAccession);
-        }
-
-        // Note: for a correct file mapping assay and project accessions are needed, which are not available
-        //       from the FileSummary object. Therefore the IdMapper singleton needs to be updated for each
-        //       assay/project to be used by the ObjectMapper.
-        updateAssayAccCache(fileSummaries);
-
-        long projectId = fileSummaries.iterator().next().getProjectId();
-        ProjectSummary projectSummary = projectService.findById(projectId);
-        updateProjectAccCache(projectId, projectSummary.getAccession());
-
-        List<FileDetail> fileDetails = ObjectMapper.mapFileSummariesToWSFileDetails(fileSummaries);
+        ProjectSummary projectSummary = findAssayProject(assayAccession);
 
-        if (projectSummary.isPublicProject()) {
-            URL url = buildPublicFtpUrlForProject(projectSummary.getAccession(), projectSummary.getPublicationDate());
-            addDownloadableUrls(fileDetails, url);
-        } else {
-            // now there is no private path, so we don't add any FTP links
-            // we can only use the http streaming method currently provided by the web
-            addPrivateFileUrls(fileDetails, fileSummaries);
-        }
-//        else {
-//            // ToDo: create real private FTP path links once they are available
-//            // now there is not private path, so we don't add any FTP links
-//            // we probably need/want user specific private locations, so we retrieve data from the security context
-//            Authentication a = SecurityContextHolder.getContext().getAuthentication();
-//            UserDetails currentUser = (UserDetails)a.getPrincipal();
-//            // add private URLs for the project files
-//            ftpPath = buildPrivateFtpPathForProject(projectSummary.getAccession(), currentUser.getUsername());
-//            addDownloadableUrls(fileDetails, ftpPath);
-//        }
-
-        Collections.sort(fileDetails, new DefaultFileComparator());
-
-        return new FileDetailList(fileDetails);
+        return new FileDetailList(fileListCache.getAssayFiles(assayAccession, projectSummary));
     }
 
 
@@ -211,128 +134,96 @@ public class FileController {
             @ApiParam(value = "an assay accession number (example: 22134)")
             @PathVariable("assayAccession") String assayAccession) throws MalformedURLException {
 
-        Collection<FileSummary> fileSummaries = fileService.findAllByAssayAccession(assayAccession);
-
-        if (fileSummaries == null || fileSummaries.isEmpty()) {
-            throw new ResourceNotFoundException("No files found for assay: " + assayAccession);
-        }
+        ProjectSummary projectSummary = findAssayProject(assayAccession);
 
-        // count the files taking criteria like FileSource into account
-        return countFiles(fileSummaries);
+        Map<ProjectFileSource, Long> fileCounts = fileCountCache.countByAssayAccession(assayAccession, projectSummary.getAccession(), projectSummary.isPublicProject());
+        return countSubmittedFiles(fileCounts, "No files found for assay: " + assayAccession);
     }
 
-    private int countFiles(Collection<FileSummary> fileSummaries) {
-        int fileCount = 0;
-        for (FileSummary fileSummary : fileSummaries) {
-            if (fileSummary.getFileSource().equals(ProjectFileSource.SUBMITTED)) {
-                fileCount++;
-            }
+    @ApiOperation(value = "download manifest for one or more projects", position = 5,
+            notes = "lists the download links of all files of the projects, for use with download tools; written project by project as the files are retrieved")
+    @RequestMapping(value = "/manifest", method = RequestMethod.GET)
+    @ResponseStatus(HttpStatus.OK)
+    public void getDownloadManifest(
+            @ApiParam(value = "one or more project accession numbers (example: PXD000001)")
+            @RequestParam(value = "projectAccession") List<String> projectAccessions,
+            @ApiParam(value = "the manifest format: url (one link per line), aria2 (aria2c input file) or tsv (table including file type and size)")
+            @RequestParam(value = "format", required = false, defaultValue = "url") String formatName,
+            HttpServletResponse response) throws IOException, InvalidDataException {
+
+        FileManifestWriter.Format format = FileManifestWriter.Format.of(formatName);
+        if (format == null) {
+            throw new InvalidDataException("Unknown manifest format: " + formatName);
         }
-        return fileCount;
-    }
-
-    /**
-     * Annotate the FileDetail object in the provided collection with the FTP and Aspera download link for a given project.
-     * This uses a pre-configured FTP domain URL/Aspera prefix as basis.
-     * Note: all FileDetail objects in the provided list have to come from the same record.
-     * Otherwise a correct link cannot be generated.
-     *
-     * @param fileDetails the Collection of FileDetail objects to annotate.
-     * @param projectFtpUrl a URL defining the full FTP path to the directory where the files are located.
-     * @throws java.net.MalformedURLException in case a proper URL could not be formed from the available details.
-     */
-    private void addDownloadableUrls(Collection<FileDetail> fileDetails, URL projectFtpUrl) throws MalformedURLException {
-        for (FileDetail fileDetail : fileDetails) {
-            String fileName = fileDetail.getFileName();
-            // Files generated by PRIDE on top of the submission files are kept in a sub-directory
-            URL fileUrl;
-            if (fileDetail.getFileSource() == ProjectFileSource.GENERATED) {
-               fileUrl = new URL(projectFtpUrl, "generated/" + fileName);
-            } else {
-                fileUrl = new URL(projectFtpUrl, fileName);
-            }
-            fileDetail.setDownloadLink(fileUrl);
-            String fileUrlPath = fileUrl.getPath();
-            String asperaPath = asperaLinkPrefix + fileUrlPath.substring(fileUrlPath.indexOf(ftpPublicRoot)+1);
-            fileDetail.setAsperaDownloadLink(asperaPath);
+        Set<String> accessions = new LinkedHashSet<>(projectAccessions);
+        if (accessions.size() > MAX_MANIFEST_PROJECTS) {
+            throw new MaxPageSizeReachedException("The number of projects requested exceeds the maximum for a manifest: " + MAX_MANIFEST_PROJECTS);
         }
-    }
-
-    private void addPrivateFileUrls(Collection<FileDetail> fileDetails, Collection<FileSummary> fileSummaries) throws MalformedURLException {
-        // for each FileDetail record add a private download URL
-        // the private file download is currently only possible via the PRIDE Archive web using the internal file ID
-        // this file ID has to be retrieved from the file records of the DB (FileSummary)
-        for (FileDetail fileDetail : fileDetails) {
-            FileSummary requestedFile = null;
-            for (FileSummary file : fileSummaries) {
-                if ( fileDetail.getFileName().equalsIgnoreCase(file.getFileName()) ) {
-                    requestedFile = file;
-                    break; // no need for further checks, we have found our file
-                }
+        logger.debug("Download manifest for {} project(s) requested", accessions.size());
+
+        // check the existence of and access to all projects before anything is written,
+        // errors can not be reported once the response has been committed
+        List<ProjectSummary> projectSummaries = new ArrayList<>(accessions.size());
+        for (String projectAccession : accessions) {
+            ProjectSummary projectSummary = projectService.findByAccession(projectAccession);
+            if (projectSummary == null) {
+                throw new ResourceNotFoundException("No project found for accession: " + projectAccession);
             }
-            if (requestedFile == null) {
-                throw new ResourceNotFoundException("Requested file not found: " + fileDetail.getFileName());
-            }
-            // generate and add the private download link
-            URL privateUrl = new URL(httpPrivateRoot + requestedFile.getId());
-            fileDetail.setDownloadLink(privateUrl);
+            projectSummaries.add(projectSummary);
         }
-    }
 
-    // ToDo: these FTP URL build methods should perhaps be moved to the FilePathBuilder?
-
-    private URL getFtpDomainUrl() {
-        if (ftpDomainUrl == null) {
-            try {
-                ftpDomainUrl = new URL(ftpDomain);
-            } catch (MalformedURLException e) {
-                logger.error("Error creating FTP base URL!", e);
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        FileManifestWriter manifestWriter = new FileManifestWriter(response.getWriter(), format);
+        manifestWriter.writeHeader();
+        for (ProjectSummary projectSummary : projectSummaries) {
+            // a manifest may span many (rarely requested) projects, so their file lists are built without
+            // going through the file list cache, where they would evict the lists of frequently requested projects
+            Collection<FileSummary> fileSummaries = fileService.findAllByProjectAccession(projectSummary.getAccession());
+            if (fileSummaries == null || fileSummaries.isEmpty()) {
+                // projects without files have nothing to download
+                continue;
             }
+            manifestWriter.writeFiles(fileDetailBuilder.buildFileDetails(projectSummary, fileSummaries));
         }
-        return ftpDomainUrl;
-    }
-
-    private URL buildPublicFtpUrlForProject(String projectAccession, Date publicationDate) throws MalformedURLException {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(publicationDate);
-        int month = calendar.get(Calendar.MONTH) + 1;
-        String datePath = calendar.get(Calendar.YEAR) + "/" + (month < 10 ? "0" : "") + month;
-        // make sure the path ends with slash to denote a directory URL,
-        // otherwise the bit after the last slash will be replaced when building a new URL
-        String ftpProjectPath = ftpPublicRoot + datePath + "/" + projectAccession + "/";
-        return new URL(getFtpDomainUrl(), ftpProjectPath);
     }
 
-    private void updateAssayAccCache(Collection<FileSummary> fileSummaries) {
-        for (FileSummary fileSummary : fileSummaries) {
-            // there may be files with no assay ID (partial submissions),
-            if (fileSummary.getAssayId() != null) {
-                updateAssayAccCache(fileSummary.getAssayId());
-            }
+    /**
+     * @return the project of an assay, the secure services check the access to both.
+     * @throws ResourceNotFoundException if the assay does not exist.
+     */
+    private ProjectSummary findAssayProject(String assayAccession) {
+        AssaySummary assaySummary;
+        try {
+            assaySummary = assayService.findByAccession(assayAccession);
+        } catch (AssayAccessException aae) {
+            logger.error("AssayAccessException trying to access assay: " + assayAccession, aae);
+            throw new InternalServerErrorException("AssayAccessException for " + assayAccession);
         }
-    }
-    private void updateAssayAccCache(long assayID) {
-        updateAssayAccCache(assayID, null);
-    }
-    private void updateAssayAccCache(long assayID, String assayAccession) {
-        if ( !IdMapper.getInstance().containsAssayId(assayID) ) {
-            if (assayAccession == null || assayAccession.trim().isEmpty()) {
-                AssaySummary assay = assayService.findById(assayID);
-                assayAccession = assay.getAccession();
-            }
-            IdMapper.getInstance().storeAssayAccession(assayID, assayAccession);
+        if (assaySummary == null) {
+            throw new ResourceNotFoundException("No files found for assay: " + assayAccession);
         }
+        ProjectSummary projectSummary = projectService.findById(assaySummary.getProjectId());
+        if (projectSummary == null) {
+            throw new ResourceNotFoundException("No project found for assay: " + assayAccession);
+        }
+        return projectSummary;
     }
 
-    private void updateProjectAccCache(long projectID, String projectAccession) {
-        if ( !IdMapper.getInstance().containsProteinId(projectID) ) {
-            if (projectAccession == null || projectAccession.trim().isEmpty()) {
-                ProjectSummary project = projectService.findById(projectID);
-                projectAccession = project.getAccession();
-            }
-            IdMapper.getInstance().storeProteinAccession(projectID, projectAccession);
+    /**
+     * @return the number of submitted files, other file sources (e.g. internal files) are not counted.
+     * @throws ResourceNotFoundException if there are no files at all.
+     */
+    private static int countSubmittedFiles(Map<ProjectFileSource, Long> fileCounts, String notFoundMessage) {
+        long totalCount = 0;
+        for (Long count : fileCounts.values()) {
+            totalCount += count;
+        }
+        if (totalCount == 0) {
+            throw new ResourceNotFoundException(notFoundMessage);
         }
+        Long submittedCount = fileCounts.get(ProjectFileSource.SUBMITTED);
+        return submittedCount == null ? 0 : submittedCount.intValue();
     }
 
-
 }
@@ -0,0 +1,108 @@
+package uk.ac.ebi.pride.archive.web.service.controller.file;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileSource;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+import uk.ac.ebi.pride.archive.web.service.cache.Caches;
+import uk.ac.ebi.pride.archive.web.service.repository.FileCountService;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the file counts of public projects and their assays, which do not change once published.
+ * Counts of private projects may change with every (re-)submission and are always queried.
+ * Note: access to the project or assay has to be checked before the counts are requested.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class FileCountCache {
+
+    private static final int MAX_CACHED_COUNTS = 50000;
+    // files of public projects are rarely updated, e.g. when adding generated files
+    private static final int TIME_TO_LIVE_HOURS = 24;
+
+    @Autowired
+    private FileCountService fileCountService;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    private Cache<String, FileCounts> counts;
+
+    @PostConstruct
+    public void init() {
+        counts = cacheRegistry.register("file-counts", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_COUNTS)
+                .expireAfterWrite(TIME_TO_LIVE_HOURS, TimeUnit.HOURS)
+                .recordStats()
+                .<String, FileCounts>build());
+    }
+
+    /**
+     * @param publicProject whether the project is public, only then the counts are cached.
+     * @return the number of files of the project by file source.
+     */
+    public Map<ProjectFileSource, Long> countByProjectAccession(final String projectAccession, boolean publicProject) {
+        if (!publicProject) {
+            return fileCountService.countByProjectAccession(projectAccession);
+        }
+        return Caches.get(counts, "project:" + projectAccession, new Callable<FileCounts>() {
+            @Override
+            public FileCounts call() {
+                return new FileCounts(projectAccession, fileCountService.countByProjectAccession(projectAccession));
+            }
+        }).counts;
+    }
+
+    /**
+     * @param projectAccession the project of the assay, its counts are invalidated together with the project.
+     * @param publicProject whether the project of the assay is public, only then the counts are cached.
+     * @return the number of files of the assay by file source.
+     */
+    public Map<ProjectFileSource, Long> countByAssayAccession(final String assayAccession, final String projectAccession, boolean publicProject) {
+        if (!publicProject) {
+            return fileCountService.countByAssayAccession(assayAccession);
+        }
+        return Caches.get(counts, "assay:" + assayAccession, new Callable<FileCounts>() {
+            @Override
+            public FileCounts call() {
+                return new FileCounts(projectAccession, fileCountService.countByAssayAccession(assayAccession));
+            }
+        }).counts;
+    }
+
+    /**
+     * Drops the cached file counts of a project and its assays, e.g. after files have been added to the project.
+     */
+    public void invalidateProject(String projectAccession) {
+        Iterator<FileCounts> iterator = counts.asMap().values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().projectAccession.equals(projectAccession)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * The file counts of a project or assay and the project they belong to.
+     */
+    private static class FileCounts {
+        private final String projectAccession;
+        private final Map<ProjectFileSource, Long> counts;
+
+        private FileCounts(String projectAccession, Map<ProjectFileSource, Long> counts) {
+            this.projectAccession = projectAccession;
+            this.counts = Collections.unmodifiableMap(counts);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package uk.ac.ebi.pride.archive.web.service.controller.file;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileSource;
+import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
+import uk.ac.ebi.pride.archive.repo.file.service.FileSummary;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.security.assay.AssaySecureService;
+import uk.ac.ebi.pride.archive.security.project.ProjectSecureService;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+import uk.ac.ebi.pride.archive.web.service.error.exception.ResourceNotFoundException;
+import uk.ac.ebi.pride.archive.web.service.model.file.DefaultFileComparator;
+import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
+import uk.ac.ebi.pride.archive.web.service.util.IdMapper;
+import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
+
+import javax.annotation.PostConstruct;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Maps the file records of a project to FileDetail objects with their download links
+ * (FTP and Aspera for public projects, PRIDE Archive web for private projects).
+ *
+ * @author Rui Wang
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class FileDetailBuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDetailBuilder.class);
+
+    private static final int MAX_CACHED_LINK_TEMPLATES = 20000;
+
+    @Autowired
+    private ProjectSecureService projectService;
+
+    @Autowired
+    private AssaySecureService assayService;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Value("#{fileConfig['ftp.domain']}")
+    private String ftpDomain;
+    private URL ftpDomainUrl;
+
+    @Value("#{fileConfig['ftp.public.base.path']}")
+    private String ftpPublicRoot;
+    @Value("#{fileConfig['ftp.private.base.path']}")
+    private String ftpPrivateRoot;
+    @Value("#{fileConfig['aspera.download.link.prefix']}")
+    private String asperaLinkPrefix;
+    private String httpPrivateRoot = "http://www.ebi.ac.uk/pride/archive/files/";
+
+    private final Cache<String, LinkTemplate> linkTemplates = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_LINK_TEMPLATES)
+            .recordStats()
+            .build();
+
+    @PostConstruct
+    public void init() {
+        cacheRegistry.register("file-link-templates", linkTemplates);
+    }
+
+    /**
+     * @param projectSummary the project the files belong to.
+     * @param fileSummaries the file records of the project (or of one of its assays).
+     * @return the FileDetail objects, including download links, in default file order.
+     * @throws MalformedURLException in case a proper URL could not be formed from the available details.
+     */
+    public List<FileDetail> buildFileDetails(ProjectSummary projectSummary, Collection<FileSummary> fileSummaries) throws MalformedURLException {
+        // Note: for a correct file mapping assay and project accessions are needed, which are not available
+        //       from the FileSummary object. Therefore the IdMapper singleton needs to be updated for each
+        //       assay/project to be used by the ObjectMapper.
+        updateProjectAccCache(projectSummary.getId(), projectSummary.getAccession());
+        updateAssayAccCache(fileSummaries);
+
+        // the internal file IDs are needed for the private download links
+        Map<FileDetail, Long> fileIds = projectSummary.isPublicProject() ? null : new IdentityHashMap<FileDetail, Long>(fileSummaries.size());
+        List<FileDetail> fileDetails = ObjectMapper.mapFileSummariesToWSFileDetails(fileSummaries, fileIds);
+
+        if (projectSummary.isPublicProject()) {
+            addDownloadableUrls(fileDetails, getLinkTemplate(projectSummary.getAccession(), projectSummary.getPublicationDate()));
+        } else {
+            // now there is no private path, so we don't add any FTP links
+            // we can only use the http streaming method currently provided by the web
+            addPrivateFileUrls(fileDetails, fileIds);
+
+            // we probably need/want user specific private locations, so we retrieve data from the security context
+//            Authentication a = SecurityContextHolder.getContext().getAuthentication();
+//            UserDetails currentUser = (UserDetails)a.getPrincipal();
+//            // add private URLs for the project files
+//            ftpPath = buildPrivateFtpPathForProject(projectSummary.getAccession(), currentUser.getUsername());
+//            addDownloadableUrls(fileDetails, ftpPath);
+        }
+
+        Collections.sort(fileDetails, new DefaultFileComparator());
+
+        return fileDetails;
+    }
+
+    /**
+     * Annotate the FileDetail object in the provided collection with the FTP and Aspera download link for a given project.
+     * Note: all FileDetail objects in the provided list have to come from the same record.
+     * Otherwise a correct link cannot be generated.
+     *
+     * @param fileDetails the Collection of FileDetail objects to annotate.
+     * @param linkTemplate the FTP and Aspera link prefixes of the directory where the files are located.
+     * @throws java.net.MalformedURLException in case a proper URL could not be formed from the available details.
+     */
+    private void addDownloadableUrls(Collection<FileDetail> fileDetails, LinkTemplate linkTemplate) throws MalformedURLException {
+        for (FileDetail fileDetail : fileDetails) {
+            // Files generated by PRIDE on top of the submission files are kept in a sub-directory
+            String filePath = fileDetail.getFileSource() == ProjectFileSource.GENERATED
+                    ? "generated/" + fileDetail.getFileName()
+                    : fileDetail.getFileName();
+            fileDetail.setDownloadLink(new URL(linkTemplate.ftpPrefix + filePath));
+            fileDetail.setAsperaDownloadLink(linkTemplate.asperaPrefix + filePath);
+        }
+    }
+
+    /**
+     * Returns the link prefixes of the public FTP directory of a project, which are built from the pre-configured
+     * FTP domain URL/Aspera prefix, the publication date and the accession of the project.
+     */
+    private LinkTemplate getLinkTemplate(final String projectAccession, final Date publicationDate) throws MalformedURLException {
+        // the publication date is part of the key, as it determines the directory of the project
+        String key = projectAccession + '|' + publicationDate.getTime();
+        LinkTemplate linkTemplate = linkTemplates.getIfPresent(key);
+        if (linkTemplate == null) {
+            URL projectFtpUrl = buildPublicFtpUrlForProject(projectAccession, publicationDate);
+            String projectFtpPath = projectFtpUrl.getPath();
+            linkTemplate = new LinkTemplate(projectFtpUrl.toString(),
+                    asperaLinkPrefix + projectFtpPath.substring(projectFtpPath.indexOf(ftpPublicRoot) + 1));
+            linkTemplates.put(key, linkTemplate);
+        }
+        return linkTemplate;
+    }
+
+    private void addPrivateFileUrls(Collection<FileDetail> fileDetails, Map<FileDetail, Long> fileIds) throws MalformedURLException {
+        // for each FileDetail record add a private download URL
+        // the private file download is currently only possible via the PRIDE Archive web using the internal file ID
+        // this file ID has been recorded when mapping the file records of the DB (FileSummary) to FileDetail objects
+        for (FileDetail fileDetail : fileDetails) {
+            if (!fileIds.containsKey(fileDetail)) {
+                throw new ResourceNotFoundException("Requested file not found: " + fileDetail.getFileName());
+            }
+            // generate and add the private download link
+            URL privateUrl = new URL(httpPrivateRoot + fileIds.get(fileDetail));
+            fileDetail.setDownloadLink(privateUrl);
+        }
+    }
+
+    // ToDo: these FTP URL build methods should perhaps be moved to the FilePathBuilder?
+
+    private URL getFtpDomainUrl() {
+        if (ftpDomainUrl == null) {
+            try {
+                ftpDomainUrl = new URL(ftpDomain);
+            } catch (MalformedURLException e) {
+                logger.error("Error creating FTP base URL!", e);
+            }
+        }
+        return ftpDomainUrl;
+    }
+
+    private URL buildPublicFtpUrlForProject(String projectAccession, Date publicationDate) throws MalformedURLException {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(publicationDate);
+        int month = calendar.get(Calendar.MONTH) + 1;
+        String datePath = calendar.get(Calendar.YEAR) + "/" + (month < 10 ? "0" : "") + month;
+        // make sure the path ends with slash to denote a directory URL,
+        // otherwise the bit after the last slash will be replaced when building a new URL
+        String ftpProjectPath = ftpPublicRoot + datePath + "/" + projectAccession + "/";
+        return new URL(getFtpDomainUrl(), ftpProjectPath);
+    }
+
+    private void updateAssayAccCache(Collection<FileSummary> fileSummaries) {
+        for (FileSummary fileSummary : fileSummaries) {
+            // there may be files with no assay ID (partial submissions),
+            if (fileSummary.getAssayId() != null) {
+                updateAssayAccCache(fileSummary.getAssayId());
+            }
+        }
+    }
+    private void updateAssayAccCache(long assayID) {
+        updateAssayAccCache(assayID, null);
+    }
+    private void updateAssayAccCache(long assayID, String assayAccession) {
+        if ( !IdMapper.getInstance().containsAssayId(assayID) ) {
+            if (assayAccession == null || assayAccession.trim().isEmpty()) {
+                AssaySummary assay = assayService.findById(assayID);
+                assayAccession = assay.getAccession();
+            }
+            IdMapper.getInstance().storeAssayAccession(assayID, assayAccession);
+        }
+    }
+
+    void updateProjectAccCache(long projectID, String projectAccession) {
+        if ( !IdMapper.getInstance().containsProteinId(projectID) ) {
+            if (projectAccession == null || projectAccession.trim().isEmpty()) {
+                ProjectSummary project = projectService.findById(projectID);
+                projectAccession = project.getAccession();
+            }
+            IdMapper.getInstance().storeProteinAccession(projectID, projectAccession);
+        }
+    }
+
+    /**
+     * FTP and Aspera link prefixes of the public directory of a project, the links of
+     * the project files only need the (relative) file path to be appended.
+     */
+    private static class LinkTemplate {
+        private final String ftpPrefix;
+        private final String asperaPrefix;
+
+        private LinkTemplate(String ftpPrefix, String asperaPrefix) {
+            this.ftpPrefix = ftpPrefix;
+            this.asperaPrefix = asperaPrefix;
+        }
+    }
+
+}
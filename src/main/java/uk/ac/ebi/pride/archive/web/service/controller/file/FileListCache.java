@@ -0,0 +1,172 @@
+package uk.ac.ebi.pride.archive.web.service.controller.file;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.repo.file.service.FileSummary;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.security.file.FileSecureService;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+import uk.ac.ebi.pride.archive.web.service.cache.Caches;
+import uk.ac.ebi.pride.archive.web.service.error.exception.ResourceNotFoundException;
+import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the fully built (sorted and linked) file lists of projects and assays, so the file records
+ * of a dataset are not loaded and mapped again for every request.
+ *
+ * File lists of public projects are kept for a day (like their file counts, see FileCountCache), but they
+ * are only used as long as the project is still public with the same publication date (which determines
+ * the download links).
+ * File lists of private projects may change with every (re-)submission, so they are only kept shortly
+ * in a separate cache. The caches are bounded by the total number of files they hold.
+ * Note: access to the project has to be checked before its file lists are requested.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class FileListCache {
+
+    private static final int MAX_CACHED_PUBLIC_FILES = 500000;
+    private static final int MAX_CACHED_PRIVATE_FILES = 50000;
+    // files of public projects are rarely updated, e.g. when adding generated files
+    private static final int PUBLIC_TIME_TO_LIVE_HOURS = 24;
+    private static final int PRIVATE_TIME_TO_LIVE_SECONDS = 60;
+
+    @Autowired
+    private FileSecureService fileService;
+
+    @Autowired
+    private FileDetailBuilder fileDetailBuilder;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    private Cache<String, FileList> publicFileLists;
+    private Cache<String, FileList> privateFileLists;
+
+    @PostConstruct
+    public void init() {
+        publicFileLists = cacheRegistry.register("file-lists-public", CacheBuilder.newBuilder()
+                .maximumWeight(MAX_CACHED_PUBLIC_FILES)
+                .weigher(new FileListWeigher())
+                .expireAfterWrite(PUBLIC_TIME_TO_LIVE_HOURS, TimeUnit.HOURS)
+                .recordStats()
+                .<String, FileList>build());
+        privateFileLists = cacheRegistry.register("file-lists-private", CacheBuilder.newBuilder()
+                .maximumWeight(MAX_CACHED_PRIVATE_FILES)
+                .weigher(new FileListWeigher())
+                .expireAfterWrite(PRIVATE_TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS)
+                .recordStats()
+                .<String, FileList>build());
+    }
+
+    /**
+     * @param projectSummary the project, access to it has to be checked already.
+     * @return the (unmodifiable) file list of the project in default file order.
+     * @throws ResourceNotFoundException if the project has no files.
+     */
+    public List<FileDetail> getProjectFiles(final ProjectSummary projectSummary) {
+        return get("project:" + projectSummary.getAccession(), projectSummary, new Callable<Collection<FileSummary>>() {
+            @Override
+            public Collection<FileSummary> call() {
+                Collection<FileSummary> fileSummaries = fileService.findAllByProjectAccession(projectSummary.getAccession());
+                if (fileSummaries == null || fileSummaries.isEmpty()) {
+                    throw new ResourceNotFoundException("No files found for project: " + projectSummary.getAccession());
+                }
+                return fileSummaries;
+            }
+        });
+    }
+
+    /**
+     * @param assayAccession the accession of the assay.
+     * @param projectSummary the project of the assay, access to it has to be checked already.
+     * @return the (unmodifiable) file list of the assay in default file order.
+     * @throws ResourceNotFoundException if the assay has no files.
+     */
+    public List<FileDetail> getAssayFiles(final String assayAccession, ProjectSummary projectSummary) {
+        return get("assay:" + assayAccession, projectSummary, new Callable<Collection<FileSummary>>() {
+            @Override
+            public Collection<FileSummary> call() {
+                Collection<FileSummary> fileSummaries = fileService.findAllByAssayAccession(assayAccession);
+                if (fileSummaries == null || fileSummaries.isEmpty()) {
+                    throw new ResourceNotFoundException("No files found for assay: " + assayAccession);
+                }
+                return fileSummaries;
+            }
+        });
+    }
+
+    /**
+     * Drops the file lists of a project and its assays, e.g. after files have been added to the project.
+     */
+    public void invalidateProject(String projectAccession) {
+        for (Cache<String, FileList> fileLists : Arrays.asList(publicFileLists, privateFileLists)) {
+            Iterator<FileList> iterator = fileLists.asMap().values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().projectAccession.equals(projectAccession)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private List<FileDetail> get(String key, final ProjectSummary projectSummary, final Callable<Collection<FileSummary>> fileLoader) {
+        Cache<String, FileList> fileLists = projectSummary.isPublicProject() ? publicFileLists : privateFileLists;
+        final Date publicationDate = projectSummary.getPublicationDate();
+
+        FileList fileList = fileLists.getIfPresent(key);
+        if (fileList != null && !fileList.isValidFor(projectSummary.isPublicProject(), publicationDate)) {
+            // the project has been (re-)published since the list was built, so its download links changed
+            fileLists.asMap().remove(key, fileList);
+        }
+        return Caches.get(fileLists, key, new Callable<FileList>() {
+            @Override
+            public FileList call() throws Exception {
+                List<FileDetail> fileDetails = fileDetailBuilder.buildFileDetails(projectSummary, fileLoader.call());
+                return new FileList(projectSummary.getAccession(), projectSummary.isPublicProject(), publicationDate,
+                        Collections.unmodifiableList(fileDetails));
+            }
+        }).fileDetails;
+    }
+
+    /**
+     * A built file list and the project state it has been built for.
+     */
+    private static class FileList {
+        private final String projectAccession;
+        private final boolean publicProject;
+        private final Long publicationTime;
+        private final List<FileDetail> fileDetails;
+
+        private FileList(String projectAccession, boolean publicProject, Date publicationDate, List<FileDetail> fileDetails) {
+            this.projectAccession = projectAccession;
+            this.publicProject = publicProject;
+            this.publicationTime = publicationDate == null ? null : publicationDate.getTime();
+            this.fileDetails = fileDetails;
+        }
+
+        private boolean isValidFor(boolean publicProject, Date publicationDate) {
+            Long publicationTime = publicationDate == null ? null : publicationDate.getTime();
+            return this.publicProject == publicProject
+                    && (this.publicationTime == null ? publicationTime == null : this.publicationTime.equals(publicationTime));
+        }
+    }
+
+    private static class FileListWeigher implements Weigher<String, FileList> {
+        @Override
+        public int weigh(String key, FileList fileList) {
+            return Math.max(1, fileList.fileDetails.size());
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package uk.ac.ebi.pride.archive.web.service.controller.file;
+
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileSource;
+import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Writes the download links of file lists as a download manifest, one file list at a time,
+ * so a manifest over many projects never has to be held in memory as a whole.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+class FileManifestWriter {
+
+    /**
+     * The supported manifest formats.
+     */
+    enum Format {
+        /** one download link per line, e.g. for "wget -i" or "curl -K" */
+        URL("text/uri-list"),
+        /** aria2 input file: the download link followed by the target path of the file (relative to the download directory) */
+        ARIA2("text/plain"),
+        /** tab separated table with a header line, including file type and size */
+        TSV("text/tab-separated-values");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return the format for the (case insensitive) name, or null if there is no such format.
+         */
+        static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String TSV_HEADER = "project_accession\tassay_accession\tfile_name\tfile_type\tfile_source\tfile_size\tdownload_link\taspera_link";
+
+    private final Writer writer;
+    private final Format format;
+
+    FileManifestWriter(Writer writer, Format format) {
+        this.writer = writer;
+        this.format = format;
+    }
+
+    void writeHeader() throws IOException {
+        if (format == Format.TSV) {
+            writer.write(TSV_HEADER);
+            writer.write(LINE_SEPARATOR);
+        }
+    }
+
+    /**
+     * Writes the entries of the files and flushes them to the client.
+     */
+    void writeFiles(Collection<FileDetail> fileDetails) throws IOException {
+        for (FileDetail fileDetail : fileDetails) {
+            if (fileDetail.getDownloadLink() == null) {
+                continue;
+            }
+            switch (format) {
+                case URL:
+                    writer.write(fileDetail.getDownloadLink().toString());
+                    break;
+                case ARIA2:
+                    writer.write(fileDetail.getDownloadLink().toString());
+                    writer.write(LINE_SEPARATOR);
+                    // keep the files of different projects apart, as file names are only unique within a project
+                    writer.write("  out=");
+                    writer.write(fileDetail.getProjectAccession());
+                    writer.write('/');
+                    writer.write(getRelativePath(fileDetail));
+                    break;
+                case TSV:
+                    writer.write(tsvValue(fileDetail.getProjectAccession()));
+                    writer.write('\t');
+                    writer.write(tsvValue(fileDetail.getAssayAccession()));
+                    writer.write('\t');
+                    writer.write(tsvValue(fileDetail.getFileName()));
+                    writer.write('\t');
+                    writer.write(tsvValue(fileDetail.getFileType()));
+                    writer.write('\t');
+                    writer.write(tsvValue(fileDetail.getFileSource()));
+                    writer.write('\t');
+                    writer.write(String.valueOf(fileDetail.getFileSize()));
+                    writer.write('\t');
+                    writer.write(fileDetail.getDownloadLink().toString());
+                    writer.write('\t');
+                    writer.write(tsvValue(fileDetail.getAsperaDownloadLink()));
+                    break;
+            }
+            writer.write(LINE_SEPARATOR);
+        }
+        writer.flush();
+    }
+
+    private static String getRelativePath(FileDetail fileDetail) {
+        // generated files are kept in a sub-directory of the project (see FileDetailBuilder)
+        return fileDetail.getFileSource() == ProjectFileSource.GENERATED
+                ? "generated/" + fileDetail.getFileName()
+                : fileDetail.getFileName();
+    }
+
+    private static String tsvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        // tabs and line breaks would break the table structure
+        return value.toString().replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+}
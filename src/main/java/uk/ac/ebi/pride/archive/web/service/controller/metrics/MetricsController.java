@@ -0,0 +1,134 @@
+package uk.ac.ebi.pride.archive.web.service.controller.metrics;
+
+import com.mangofactory.swagger.annotations.ApiIgnore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import uk.ac.ebi.pride.archive.web.service.metrics.BackendCallMetrics;
+import uk.ac.ebi.pride.archive.web.service.metrics.EndpointMetrics;
+import uk.ac.ebi.pride.archive.web.service.metrics.MetricsRegistry;
+import uk.ac.ebi.pride.archive.web.service.metrics.MetricsRegistry.BackendOperation;
+import uk.ac.ebi.pride.archive.web.service.metrics.SlowRequest;
+import uk.ac.ebi.pride.archive.web.service.metrics.SlowRequestRecorder;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exposes the request metrics of the web service endpoints in the Prometheus text format, to be
+ * scraped by the monitoring: request counts by status code and latency percentiles of the recent
+ * requests (see {@link EndpointMetrics}) per handler method, and the same for the calls of the
+ * backends (see {@link BackendCallMetrics}) per backend and operation.
+ *
+ * Also lists the recent slow requests with the breakdown of their time (see {@link SlowRequestRecorder}),
+ * for administrators only as they contain the request parameters (see the security configuration).
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Controller
+@ApiIgnore
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99, 0.999};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.95", "0.99", "0.999"};
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Autowired
+    private SlowRequestRecorder slowRequestRecorder;
+
+    @ApiIgnore
+    @RequestMapping(method = RequestMethod.GET, produces = CONTENT_TYPE)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public String getMetrics() {
+        Map<String, EndpointMetrics> endpoints = metricsRegistry.getEndpoints();
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("# HELP pride_ws_requests_total Requests handled, by handler method and HTTP status code.\n");
+        builder.append("# TYPE pride_ws_requests_total counter\n");
+        for (Map.Entry<String, EndpointMetrics> endpoint : endpoints.entrySet()) {
+            for (Map.Entry<Integer, Long> statusCount : endpoint.getValue().getStatusCounts().entrySet()) {
+                builder.append("pride_ws_requests_total{handler=\"").append(endpoint.getKey())
+                        .append("\",status=\"").append(statusCount.getKey()).append("\"} ")
+                        .append(statusCount.getValue()).append('\n');
+            }
+        }
+
+        builder.append("# HELP pride_ws_request_duration_seconds Request latency by handler method, quantiles over the last one to two minutes.\n");
+        builder.append("# TYPE pride_ws_request_duration_seconds summary\n");
+        for (Map.Entry<String, EndpointMetrics> endpoint : endpoints.entrySet()) {
+            String handler = endpoint.getKey();
+            EndpointMetrics metrics = endpoint.getValue();
+            long[] quantileValues = metrics.getRecentLatencyQuantiles(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                builder.append("pride_ws_request_duration_seconds{handler=\"").append(handler)
+                        .append("\",quantile=\"").append(QUANTILE_LABELS[i]).append("\"} ")
+                        .append(toSeconds(quantileValues[i])).append('\n');
+            }
+            builder.append("pride_ws_request_duration_seconds_sum{handler=\"").append(handler).append("\"} ")
+                    .append(toSeconds(metrics.getTotalMicros())).append('\n');
+            builder.append("pride_ws_request_duration_seconds_count{handler=\"").append(handler).append("\"} ")
+                    .append(metrics.getCount()).append('\n');
+        }
+
+        Map<BackendOperation, BackendCallMetrics> backendCalls = metricsRegistry.getBackendCalls();
+        builder.append("# HELP pride_ws_backend_calls_total Backend calls, by backend, operation and outcome.\n");
+        builder.append("# TYPE pride_ws_backend_calls_total counter\n");
+        for (Map.Entry<BackendOperation, BackendCallMetrics> backendCall : backendCalls.entrySet()) {
+            String labels = backendLabels(backendCall.getKey());
+            BackendCallMetrics metrics = backendCall.getValue();
+            long errorCount = metrics.getErrorCount();
+            builder.append("pride_ws_backend_calls_total{").append(labels).append(",outcome=\"success\"} ")
+                    .append(metrics.getCount() - errorCount).append('\n');
+            builder.append("pride_ws_backend_calls_total{").append(labels).append(",outcome=\"error\"} ")
+                    .append(errorCount).append('\n');
+        }
+
+        builder.append("# HELP pride_ws_backend_call_duration_seconds Backend call latency by backend and operation, quantiles over the last one to two minutes.\n");
+        builder.append("# TYPE pride_ws_backend_call_duration_seconds summary\n");
+        for (Map.Entry<BackendOperation, BackendCallMetrics> backendCall : backendCalls.entrySet()) {
+            String labels = backendLabels(backendCall.getKey());
+            BackendCallMetrics metrics = backendCall.getValue();
+            long[] quantileValues = metrics.getRecentLatencyQuantiles(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                builder.append("pride_ws_backend_call_duration_seconds{").append(labels)
+                        .append(",quantile=\"").append(QUANTILE_LABELS[i]).append("\"} ")
+                        .append(toSeconds(quantileValues[i])).append('\n');
+            }
+            builder.append("pride_ws_backend_call_duration_seconds_sum{").append(labels).append("} ")
+                    .append(toSeconds(metrics.getTotalMicros())).append('\n');
+            builder.append("pride_ws_backend_call_duration_seconds_count{").append(labels).append("} ")
+                    .append(metrics.getCount()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @ApiIgnore
+    @RequestMapping(value = "/slow-requests", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public
+    @ResponseBody
+    List<SlowRequest> getSlowRequests() {
+        return slowRequestRecorder.getRecentSlowRequests();
+    }
+
+    private static String backendLabels(BackendOperation operation) {
+        return "backend=\"" + operation.getBackend() + "\",operation=\"" + operation.getOperation() + "\"";
+    }
+
+    private static String toSeconds(long micros) {
+        return String.format(Locale.ENGLISH, "%.6f", micros / 1e6);
+    }
+
+}
@@ -0,0 +1,74 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.security.assay.AssaySecureService;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+import uk.ac.ebi.pride.archive.web.service.util.ProjectAggregates;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the project level counts of the project details, so the assays of a project only have
+ * to be loaded when the counts are requested for the first time or when the assays changed.
+ * Cached counts are validated against the current number of assays of the project (a cheap
+ * count query) and are recomputed if it differs.
+ * Note: access to the project has to be checked before the counts are requested.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class ProjectAggregateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectAggregateCache.class);
+
+    private static final int MAX_CACHED_PROJECTS = 20000;
+    // assay details may be updated without changing the number of assays, so the counts are refreshed once in a while
+    private static final int TIME_TO_LIVE_HOURS = 24;
+
+    @Autowired
+    private AssaySecureService assayService;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    private Cache<String, ProjectAggregates> aggregates;
+
+    @PostConstruct
+    public void init() {
+        aggregates = cacheRegistry.register("project-aggregates", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_PROJECTS)
+                .expireAfterWrite(TIME_TO_LIVE_HOURS, TimeUnit.HOURS)
+                .recordStats()
+                .<String, ProjectAggregates>build());
+    }
+
+    public ProjectAggregates getAggregates(String projectAccession) {
+        ProjectAggregates cached = aggregates.getIfPresent(projectAccession);
+        if (cached != null) {
+            Long assayCount = assayService.countByProjectAccession(projectAccession);
+            if (assayCount != null && assayCount == cached.getAssayCount()) {
+                return cached;
+            }
+            logger.debug("Assays of project " + projectAccession + " changed, recomputing project counts");
+        }
+        ProjectAggregates computed = ProjectAggregates.of(assayService.findAllByProjectAccession(projectAccession));
+        if (computed != ProjectAggregates.UNKNOWN) {
+            aggregates.put(projectAccession, computed);
+        }
+        return computed;
+    }
+
+    /**
+     * Drops the counts of a project, e.g. after its assays have been updated.
+     */
+    public void invalidate(String projectAccession) {
+        aggregates.invalidate(projectAccession);
+    }
+}
@@ -0,0 +1,52 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.springframework.http.HttpStatus;
+import uk.ac.ebi.pride.archive.web.service.model.project.ProjectDetail;
+
+/**
+ * Result for one accession of a batch project request: either the project details
+ * or the status and reason why they could not be retrieved.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class ProjectBatchItem {
+
+    private final String accession;
+    private final int status;
+    private final String error;
+    private final ProjectDetail project;
+
+    private ProjectBatchItem(String accession, HttpStatus status, String error, ProjectDetail project) {
+        this.accession = accession;
+        this.status = status.value();
+        this.error = error;
+        this.project = project;
+    }
+
+    public static ProjectBatchItem found(String accession, ProjectDetail project) {
+        return new ProjectBatchItem(accession, HttpStatus.OK, null, project);
+    }
+
+    public static ProjectBatchItem failed(String accession, HttpStatus status, String error) {
+        return new ProjectBatchItem(accession, status, error, null);
+    }
+
+    public String getAccession() {
+        return accession;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public ProjectDetail getProject() {
+        return project;
+    }
+}
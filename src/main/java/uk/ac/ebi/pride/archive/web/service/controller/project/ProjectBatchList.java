@@ -0,0 +1,22 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import java.util.List;
+
+/**
+ * Results of a batch project request, in the order the accessions were requested.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class ProjectBatchList {
+
+    private final List<ProjectBatchItem> list;
+
+    public ProjectBatchList(List<ProjectBatchItem> list) {
+        this.list = list;
+    }
+
+    public List<ProjectBatchItem> getList() {
+        return list;
+    }
+}
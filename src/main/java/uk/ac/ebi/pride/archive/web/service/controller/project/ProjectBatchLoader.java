@@ -0,0 +1,98 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.security.project.ProjectSecureService;
+import uk.ac.ebi.pride.archive.web.service.util.FanOutExecutor;
+import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
+import uk.ac.ebi.pride.archive.web.service.util.ProjectAggregates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Retrieves the details of several projects concurrently (see {@link FanOutExecutor}). Each project
+ * is retrieved with the security context of the requesting user, so access is checked per project,
+ * and failures (no access, not found, time budget exceeded, too busy) are reported per project.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class ProjectBatchLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectBatchLoader.class);
+
+    @Autowired
+    private ProjectSecureService projectService;
+
+    @Autowired
+    private ProjectAggregateCache projectAggregateCache;
+
+    @Autowired
+    private FanOutExecutor fanOutExecutor;
+
+    /**
+     * @param accessions the projects to retrieve.
+     * @param timeBudgetMillis the time after which projects that have not been retrieved yet are reported as timed out.
+     * @return one result per accession, in the same order.
+     */
+    public List<ProjectBatchItem> load(List<String> accessions, long timeBudgetMillis) throws InterruptedException {
+        List<Callable<ProjectBatchItem>> tasks = new ArrayList<>(accessions.size());
+        for (final String accession : accessions) {
+            tasks.add(new Callable<ProjectBatchItem>() {
+                @Override
+                public ProjectBatchItem call() {
+                    return loadProject(accession);
+                }
+            });
+        }
+
+        List<Future<ProjectBatchItem>> futures = fanOutExecutor.invokeAll(tasks, timeBudgetMillis);
+
+        List<ProjectBatchItem> items = new ArrayList<>(accessions.size());
+        for (int i = 0; i < accessions.size(); i++) {
+            String accession = accessions.get(i);
+            try {
+                items.add(futures.get(i).get());
+            } catch (CancellationException e) {
+                items.add(ProjectBatchItem.failed(accession, HttpStatus.GATEWAY_TIMEOUT,
+                        "Time budget of " + timeBudgetMillis + "ms exceeded"));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    items.add(ProjectBatchItem.failed(accession, HttpStatus.SERVICE_UNAVAILABLE,
+                            "Too many concurrent requests, try again later"));
+                    continue;
+                }
+                // the details stay in the server log, they are not for the client
+                logger.error("Failed to retrieve project " + accession, e);
+                items.add(ProjectBatchItem.failed(accession, HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error"));
+            }
+        }
+        return items;
+    }
+
+    private ProjectBatchItem loadProject(String accession) {
+        try {
+            // the secure service checks access for the user of the batch request
+            ProjectSummary projectSummary = projectService.findByAccession(accession);
+            if (projectSummary == null) {
+                return ProjectBatchItem.failed(accession, HttpStatus.NOT_FOUND, "No project found for accession: " + accession);
+            }
+            ProjectAggregates aggregates = projectAggregateCache.getAggregates(accession);
+            return ProjectBatchItem.found(accession, ObjectMapper.mapProjectSummary2WSProjectDetail(projectSummary, aggregates));
+        } catch (AccessDeniedException e) {
+            return ProjectBatchItem.failed(accession, HttpStatus.UNAUTHORIZED, "Access denied for project: " + accession);
+        }
+    }
+}
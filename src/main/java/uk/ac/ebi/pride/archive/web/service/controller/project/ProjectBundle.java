@@ -0,0 +1,59 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import uk.ac.ebi.pride.archive.web.service.model.assay.AssayDetail;
+import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
+import uk.ac.ebi.pride.archive.web.service.model.project.ProjectDetail;
+
+import java.util.List;
+
+/**
+ * The project details, assays and files of a project. Sections that were not requested are left out.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class ProjectBundle {
+
+    public enum Section {
+        PROJECT, ASSAYS, FILES;
+
+        public static Section fromName(String name) {
+            for (Section section : values()) {
+                if (section.name().equalsIgnoreCase(name.trim())) {
+                    return section;
+                }
+            }
+            return null;
+        }
+    }
+
+    private ProjectDetail project;
+    private List<AssayDetail> assays;
+    private List<FileDetail> files;
+
+    public ProjectDetail getProject() {
+        return project;
+    }
+
+    public void setProject(ProjectDetail project) {
+        this.project = project;
+    }
+
+    public List<AssayDetail> getAssays() {
+        return assays;
+    }
+
+    public void setAssays(List<AssayDetail> assays) {
+        this.assays = assays;
+    }
+
+    public List<FileDetail> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<FileDetail> files) {
+        this.files = files;
+    }
+}
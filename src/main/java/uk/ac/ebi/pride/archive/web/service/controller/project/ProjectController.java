@@ -14,21 +14,33 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
 import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
-import uk.ac.ebi.pride.archive.repo.user.service.UserSummary;
-import uk.ac.ebi.pride.archive.search.service.ProjectSearchService;
 import uk.ac.ebi.pride.archive.search.service.ProjectSearchSummary;
 import uk.ac.ebi.pride.archive.security.assay.AssaySecureService;
 import uk.ac.ebi.pride.archive.security.project.ProjectSecureService;
-import uk.ac.ebi.pride.archive.security.user.UserSecureService;
+import uk.ac.ebi.pride.archive.web.service.controller.file.FileListCache;
+import uk.ac.ebi.pride.archive.web.service.error.exception.InvalidDataException;
 import uk.ac.ebi.pride.archive.web.service.error.exception.MaxPageSizeReachedException;
 import uk.ac.ebi.pride.archive.web.service.error.exception.ResourceNotFoundException;
+import uk.ac.ebi.pride.archive.web.service.metrics.RequestProfile;
+import uk.ac.ebi.pride.archive.web.service.model.assay.AssayAccessionComparator;
+import uk.ac.ebi.pride.archive.web.service.model.assay.AssayDetail;
+import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
 import uk.ac.ebi.pride.archive.web.service.model.project.ProjectDetail;
 import uk.ac.ebi.pride.archive.web.service.model.project.ProjectSummaryList;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectSearchResult;
+import uk.ac.ebi.pride.archive.web.service.util.FanOutExecutor;
+import uk.ac.ebi.pride.archive.web.service.util.IdMapper;
 import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
+import uk.ac.ebi.pride.archive.web.service.util.ProjectAggregates;
+import uk.ac.ebi.pride.archive.web.service.util.SuggestionIndex;
 import uk.ac.ebi.pride.archive.web.service.util.WsUtils;
 
+import javax.servlet.http.HttpServletResponse;
 import java.security.Principal;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 
 /**
  * @author Rui Wang
@@ -46,18 +58,39 @@ public class ProjectController {
     private static final String DATE_SORTING_CRITERIA = "publication_date";
     protected static final String SCORE_SORTING_CRITERIA = "score";
     protected static final String DESCENDING_ORDER = "desc";
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 100;
+    private static final long FAN_OUT_TIME_BUDGET_MILLIS = 10000;
 
     @Autowired
-    private ProjectSearchService projectSearchService;
+    private ProjectSearchCache projectSearchCache;
 
     @Autowired
     private ProjectSecureService projectService;
 
+    @Autowired
+    private ProjectAggregateCache projectAggregateCache;
+
+    @Autowired
+    private ProjectBatchLoader projectBatchLoader;
+
     @Autowired
     private AssaySecureService assayService;
 
     @Autowired
-    private UserSecureService userServiceImpl;
+    private FileListCache fileListCache;
+
+    @Autowired
+    private FanOutExecutor fanOutExecutor;
+
+    @Autowired
+    private ProjectSuggestions projectSuggestions;
+
+    @Autowired
+    private UserProjectCache userProjectCache;
+
+    @Autowired
+    private ProjectReadModel projectReadModel;
 
 
     @ApiOperation(value = "retrieve project information by accession", position = 1, notes = "retrieve a detailed record of a specific project")
@@ -68,7 +101,13 @@ public class ProjectController {
     ProjectDetail getProjectSummary(
             @ApiParam(value = "a project accession number (example: PXD000001)")
             @PathVariable("projectAccession") String accession) {
-        logger.info("Project " + accession + " summary requested");
+        logger.debug("Project {} summary requested", accession);
+
+        // published projects are accessible to everyone, so their prebuilt documents can be served without access check
+        ProjectDetail document = projectReadModel.getProject(accession);
+        if (document != null) {
+            return document;
+        }
 
         ProjectSummary projectSummary = projectService.findByAccession(accession);
         if (projectSummary == null) {
@@ -78,14 +117,153 @@ public class ProjectController {
             throw new ResourceNotFoundException("No project found for accession: " + accession);
         }
 
-        Collection<AssaySummary> assays = assayService.findAllByProjectAccession(accession);
+        // the project counts are summed up over all assays, keep them instead of loading the assays every time
+        ProjectAggregates aggregates = projectAggregateCache.getAggregates(accession);
 
         // ToDo: retrieve assay accessions for project!
-        return ObjectMapper.mapProjectSummary2WSProjectDetail(projectSummary, assays);
+        return RequestProfile.timeStage(RequestProfile.MAPPING,
+                () -> ObjectMapper.mapProjectSummary2WSProjectDetail(projectSummary, aggregates));
     }
 
 
-    @ApiOperation(value = "list projects for given criteria", position = 2, notes = "search functionality equivalent to the search available on the PRIDE Archive web interface")
+    @ApiOperation(value = "retrieve project information, assays and files by accession", position = 6,
+            notes = "combines the results of /project/{projectAccession}, /assay/list/project/{projectAccession} and /file/list/project/{projectAccession} in one request")
+    @RequestMapping(value = "/{projectAccession}/bundle", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK) // 200
+    public
+    @ResponseBody
+    ProjectBundle getProjectBundle(
+            @ApiParam(value = "a project accession number (example: PXD000001)")
+            @PathVariable("projectAccession") String accession,
+            @ApiParam(value = "the sections to return: project, assays and/or files (default: all)")
+            @RequestParam(value = "sections", required = false, defaultValue = "project,assays,files") String[] sections
+    ) throws InvalidDataException, InterruptedException, TimeoutException {
+        logger.debug("Project {} bundle requested", accession);
+
+        Set<ProjectBundle.Section> requested = EnumSet.noneOf(ProjectBundle.Section.class);
+        for (String section : sections) {
+            ProjectBundle.Section requestedSection = ProjectBundle.Section.fromName(section);
+            if (requestedSection == null) {
+                throw new InvalidDataException("Unknown section: " + section);
+            }
+            requested.add(requestedSection);
+        }
+
+        // the project (and access to it) is only checked once for all sections
+        final ProjectSummary projectSummary = projectService.findByAccession(accession);
+        if (projectSummary == null) {
+            throw new ResourceNotFoundException("No project found for accession: " + accession);
+        }
+        IdMapper.getInstance().storeProteinAccession(projectSummary.getId(), projectSummary.getAccession());
+
+        // assays and files are independent of each other, so they are retrieved in parallel
+        long deadline = System.currentTimeMillis() + FAN_OUT_TIME_BUDGET_MILLIS;
+        Future<Collection<AssaySummary>> assaysFuture = null;
+        Future<ProjectAggregates> aggregatesFuture = null;
+        if (requested.contains(ProjectBundle.Section.ASSAYS)) {
+            assaysFuture = fanOutExecutor.submit(new Callable<Collection<AssaySummary>>() {
+                @Override
+                public Collection<AssaySummary> call() {
+                    return assayService.findAllByProjectAccession(projectSummary.getAccession());
+                }
+            });
+        } else if (requested.contains(ProjectBundle.Section.PROJECT)) {
+            // without the assays section, the assays are only loaded if the project counts are not cached yet
+            aggregatesFuture = fanOutExecutor.submit(new Callable<ProjectAggregates>() {
+                @Override
+                public ProjectAggregates call() {
+                    return projectAggregateCache.getAggregates(projectSummary.getAccession());
+                }
+            });
+        }
+        Future<List<FileDetail>> filesFuture = null;
+        if (requested.contains(ProjectBundle.Section.FILES)) {
+            filesFuture = fanOutExecutor.submit(new Callable<List<FileDetail>>() {
+                @Override
+                public List<FileDetail> call() {
+                    try {
+                        // the same file list as /file/list/project/{projectAccession}, built once for both
+                        return fileListCache.getProjectFiles(projectSummary);
+                    } catch (ResourceNotFoundException e) {
+                        return new ArrayList<>();
+                    }
+                }
+            });
+        }
+
+        ProjectBundle bundle = new ProjectBundle();
+        if (assaysFuture != null) {
+            Collection<AssaySummary> assays = FanOutExecutor.get(assaysFuture, deadline);
+            if (requested.contains(ProjectBundle.Section.PROJECT)) {
+                // the assays are loaded anyway, so the project counts are computed from them
+                bundle.setProject(RequestProfile.timeStage(RequestProfile.MAPPING,
+                        () -> ObjectMapper.mapProjectSummary2WSProjectDetail(projectSummary, assays)));
+            }
+            List<AssayDetail> assayDetails = new ArrayList<>();
+            if (assays != null && !assays.isEmpty()) {
+                for (AssaySummary assay : assays) {
+                    IdMapper.getInstance().storeAssayAccession(assay.getId(), assay.getAccession());
+                }
+                assayDetails = RequestProfile.timeStage(RequestProfile.MAPPING,
+                        () -> ObjectMapper.mapAssaySummariesToWSAssayDetails(assays));
+                // provide a default sorting by assay accession
+                Collections.sort(assayDetails, new AssayAccessionComparator<AssayDetail>());
+            }
+            bundle.setAssays(assayDetails);
+        }
+        if (aggregatesFuture != null) {
+            ProjectAggregates aggregates = FanOutExecutor.get(aggregatesFuture, deadline);
+            bundle.setProject(RequestProfile.timeStage(RequestProfile.MAPPING,
+                    () -> ObjectMapper.mapProjectSummary2WSProjectDetail(projectSummary, aggregates)));
+        }
+        if (filesFuture != null) {
+            bundle.setFiles(FanOutExecutor.get(filesFuture, deadline));
+        }
+        return bundle;
+    }
+
+
+    @ApiOperation(value = "suggest search terms", position = 7,
+            notes = "suggests project titles, species, tissues, diseases, PTMs and instruments with a word starting with the given prefix, most frequent first; intended for typeahead search boxes")
+    @RequestMapping(value = "/suggest", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK) // 200
+    public
+    @ResponseBody
+    List<SuggestionIndex.Suggestion> suggest(
+            @ApiParam(value = "the start of the search term (example: hum)")
+            @RequestParam(value = "prefix") String prefix,
+            @ApiParam(value = "how many suggestions to return. Maximum is: " + MAX_SUGGESTIONS)
+            @RequestParam(value = "show", required = false, defaultValue = WsUtils.DEFAULT_SHOW+"") int showResults) {
+        if (showResults > MAX_SUGGESTIONS) {
+            logger.error("Maximum number of suggestions reached");
+            throw new MaxPageSizeReachedException("The number of suggestions requested exceed the maximum: " + MAX_SUGGESTIONS);
+        }
+        return projectSuggestions.suggest(prefix, showResults);
+    }
+
+
+    @ApiOperation(value = "retrieve project information for several accessions", position = 5,
+            notes = "retrieves the detailed records of up to " + MAX_BATCH_SIZE + " projects at once; projects that can not be retrieved (not found, no access, timed out) are listed with their status and error")
+    @RequestMapping(value = "/batch", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK) // 200
+    public
+    @ResponseBody
+    ProjectBatchList getProjectSummaries(
+            @ApiParam(value = "the project accession numbers (example: PXD000001,PXD000002)")
+            @RequestParam(value = "accession") String[] accessions) throws InterruptedException {
+        // the same project is only retrieved once
+        List<String> uniqueAccessions = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(accessions)));
+        logger.debug("{} project summaries requested", uniqueAccessions.size());
+        if (uniqueAccessions.size() > MAX_BATCH_SIZE) {
+            logger.error("Maximum size of batch reached");
+            throw new MaxPageSizeReachedException("The number of projects requested exceed the maximum size for a batch: " + MAX_BATCH_SIZE);
+        }
+
+        return new ProjectBatchList(projectBatchLoader.load(uniqueAccessions, FAN_OUT_TIME_BUDGET_MILLIS));
+    }
+
+
+    @ApiOperation(value = "list projects for given criteria", position = 2, notes = "search functionality equivalent to the search available on the PRIDE Archive web interface; the total number of results is returned in the " + WsUtils.TOTAL_COUNT_HEADER + " header")
     @RequestMapping(value = "/list", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.OK) // 200
     public
@@ -118,7 +296,8 @@ public class ProjectController {
             @ApiParam(value = "filter by quantification annotation (example: label-free)")
             @RequestParam(value = "quantificationFilter", required = false, defaultValue = "") String[] quantificationFilter,
             @ApiParam(value = "filter by project tags (example: Biomedical)")
-            @RequestParam(value = "projectTagFilter", required = false, defaultValue = "") String[] projectTagFilter
+            @RequestParam(value = "projectTagFilter", required = false, defaultValue = "") String[] projectTagFilter,
+            HttpServletResponse response
             ) throws org.apache.solr.common.SolrException {
 
         // Note: since the search service expects 1 based paging, we don't need to adjust the page parameter
@@ -142,42 +321,41 @@ public class ProjectController {
         }
 
 
-        String queryTerm = SolrQueryBuilder.buildQueryTerm(term);
-        String queryFields = SolrQueryBuilder.buildQueryFields();
-        String queryFilters[] = SolrQueryBuilder.buildQueryFilters(
-                Arrays.asList(ptmsFilter),
-                Arrays.asList(speciesFilter),
-                Arrays.asList(tissueFilter),
-                Arrays.asList(diseaseFilter),
-                Arrays.asList(titleFilter),
-                Arrays.asList(instrumentFilter),
-                Arrays.asList(quantificationFilter),
-                Arrays.asList(experimentTypeFilter),
-                Arrays.asList(projectTagFilter)
+        ProjectSearchQuery query = new ProjectSearchQuery(term,
+                ptmsFilter,
+                speciesFilter,
+                tissueFilter,
+                diseaseFilter,
+                titleFilter,
+                instrumentFilter,
+                quantificationFilter,
+                experimentTypeFilter,
+                projectTagFilter
         );
 
         int start = showResults * (page);
 
-        Collection<ProjectSearchSummary> projects = projectSearchService.searchProjects(
-                queryTerm,
-                queryFields,
-                queryFilters,
-                start, showResults, sortBy, order);
+        ProjectSearchResult result = projectSearchCache.searchProjects(query, start, showResults, sortBy, order);
+        // Solr counts all matches of the search, so the total comes without a separate count query
+        WsUtils.setTotalCount(response, result.getNumFound());
+
+        Collection<ProjectSearchSummary> projects = result.getProjects();
 
         if (projects == null || projects.isEmpty()) {
-            logger.info("No projects found for query: " + queryTerm + " + " + Arrays.toString(queryFilters));
+            logger.debug("No projects found for query: {}", query);
             return new ProjectSummaryList();
         }
 
 
-        ProjectSummaryList list = new ProjectSummaryList(ObjectMapper.mapProjectSearchSummarys2WSProjectSummaries(projects));
+        ProjectSummaryList list = new ProjectSummaryList(RequestProfile.timeStage(RequestProfile.MAPPING,
+                () -> ObjectMapper.mapProjectSearchSummarys2WSProjectSummaries(projects)));
 
-        logger.debug("Fetched " + list.size() + " project records.");
+        logger.debug("Fetched {} project records.", list.size());
         return list;
     }
 
 
-    @ApiOperation(value = "count projects for given criteria", nickname = "protein count", notes = "takes same query parameters as the /list operation; typically used to retrieve number of results before querying with /list", position = 3)
+    @ApiOperation(value = "count projects for given criteria", nickname = "protein count", notes = "takes same query parameters as the /list operation; the /list operation also returns the number of results in the " + WsUtils.TOTAL_COUNT_HEADER + " header", position = 3)
     @RequestMapping(value = "/count", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.OK) // 200
     public
@@ -205,31 +383,74 @@ public class ProjectController {
             @RequestParam(value = "projectTagFilter", required = false, defaultValue = "") String[] projectTagFilter
             ) throws org.apache.solr.common.SolrException {
 
-        String queryTerm = SolrQueryBuilder.buildQueryTerm(term);
-        String queryFields = SolrQueryBuilder.buildQueryFields();
-        String queryFilters[] = SolrQueryBuilder.buildQueryFilters(
-                Arrays.asList(ptmsFilter),
-                Arrays.asList(speciesFilter),
-                Arrays.asList(tissueFilter),
-                Arrays.asList(diseaseFilter),
-                Arrays.asList(titleFilter),
-                Arrays.asList(instrumentFilter),
-                Arrays.asList(quantificationFilter),
-                Arrays.asList(experimentTypeFilter),
-                Arrays.asList(projectTagFilter)
+        ProjectSearchQuery query = new ProjectSearchQuery(term,
+                ptmsFilter,
+                speciesFilter,
+                tissueFilter,
+                diseaseFilter,
+                titleFilter,
+                instrumentFilter,
+                quantificationFilter,
+                experimentTypeFilter,
+                projectTagFilter
         );
 
-        long count = projectSearchService.numSearchResults(
-                queryTerm,
-                queryFields,
-                queryFilters);
+        long count = projectSearchCache.countProjects(query);
 
-        logger.debug("Results for query:" + queryTerm + " with filters: " + Arrays.toString(queryFilters) + " = " + count);
+        logger.debug("Results for query: {} = {}", query, count);
 
         return count;
     }
 
 
+    @ApiOperation(value = "count projects per facet value for given criteria", notes = "takes same query parameters as the /list operation; returns the number of matching projects for each species, tissue, PTM, instrument and project tag (the facet names correspond to the filter parameters)", position = 4)
+    @RequestMapping(value = "/facets", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK) // 200
+    public
+    @ResponseBody
+    Map<String, Map<String, Long>> facetSearchProjects(
+            @ApiParam(value = "search term to query for (example: stress)")
+            @RequestParam(value = "query", required = false, defaultValue = "") String term,
+            @ApiParam(value = "filter by species (NCBI taxon ID, example: 9606 for human)")
+            @RequestParam(value = "speciesFilter", required = false, defaultValue = "") String[] speciesFilter,
+            @ApiParam(value = "filter by PTM annotation (example: phosphorylation)")
+            @RequestParam(value = "ptmsFilter", required = false, defaultValue = "") String[] ptmsFilter,
+            @ApiParam(value = "filter by tissue annotation (example: brain)")
+            @RequestParam(value = "tissueFilter", required = false, defaultValue = "") String[] tissueFilter,
+            @ApiParam(value = "filter by disease annotation (example: cancer)")
+            @RequestParam(value = "diseaseFilter", required = false, defaultValue = "") String[] diseaseFilter,
+            @ApiParam(value = "filter the title for keywords (example: stress)")
+            @RequestParam(value = "titleFilter", required = false, defaultValue = "") String[] titleFilter,
+            @ApiParam(value = "filter for instrument names or keywords (example: ltq)")
+            @RequestParam(value = "instrumentFilter", required = false, defaultValue = "") String[] instrumentFilter,
+            @ApiParam(value = "filter by experiment type (example: shotgun)")
+            @RequestParam(value = "experimentTypeFilter", required = false, defaultValue = "") String[] experimentTypeFilter,
+            @ApiParam(value = "filter by quantification annotation (example: label-free)")
+            @RequestParam(value = "quantificationFilter", required = false, defaultValue = "") String[] quantificationFilter,
+            @ApiParam(value = "filter by project tags (example: Biomedical)")
+            @RequestParam(value = "projectTagFilter", required = false, defaultValue = "") String[] projectTagFilter
+            ) throws org.apache.solr.common.SolrException {
+
+        ProjectSearchQuery query = new ProjectSearchQuery(term,
+                ptmsFilter,
+                speciesFilter,
+                tissueFilter,
+                diseaseFilter,
+                titleFilter,
+                instrumentFilter,
+                quantificationFilter,
+                experimentTypeFilter,
+                projectTagFilter
+        );
+
+        Map<String, Map<String, Long>> facets = projectSearchCache.facetProjects(query);
+
+        logger.debug("Facets requested for query: {}", query);
+
+        return facets;
+    }
+
+
 
     @ApiIgnore
     @RequestMapping(value = "/list/user", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -242,18 +463,17 @@ public class ProjectController {
             throw new AccessDeniedException("Authentication required to list projects for user!");
         }
         if (principal.getName() != null) {
-            logger.info("Projects owned by " + principal.getName() + " have been requested");
+            logger.debug("Projects owned by {} have been requested", principal.getName());
         }
 
-        UserSummary user = userServiceImpl.findByEmail(principal.getName());
+        Collection<ProjectSummary> projectSummaries = userProjectCache.getProjects(principal.getName());
 
-        Collection<ProjectSummary> projectSummaries = userServiceImpl.findAllProjectsById(user.getId());
-
-        if (projectSummaries == null || projectSummaries.isEmpty()) {
-            throw new ResourceNotFoundException("No projects found for user: " + user.getEmail());
+        if (projectSummaries.isEmpty()) {
+            throw new ResourceNotFoundException("No projects found for user: " + principal.getName());
         }
 
-        Collection<uk.ac.ebi.pride.archive.web.service.model.project.ProjectSummary> summaries = ObjectMapper.mapProjectSummaries2WSProjectSummaries(projectSummaries);
+        Collection<uk.ac.ebi.pride.archive.web.service.model.project.ProjectSummary> summaries = RequestProfile.timeStage(
+                RequestProfile.MAPPING, () -> ObjectMapper.mapProjectSummaries2WSProjectSummaries(projectSummaries));
 
         return new ProjectSummaryList(summaries);
     }
@@ -271,40 +491,95 @@ public class ProjectController {
 
         private static final int PX_RELEVANCE = 4;
 
+        /**
+         * Boosted query fields, in the order they are passed on to Solr.
+         */
+        private static final SearchFields[] QUERY_FIELD_LIST = {
+                SearchFields.TITLE,
+                SearchFields.DESCRIPTION,
+                SearchFields.ACCESSION,
+                SearchFields.PUBMED,
+                SearchFields.SPECIES_NAMES,
+                SearchFields.SPECIES_ACCESSIONS,
+                SearchFields.SPECIES_ASCENDANTS_AS_TEXT,
+                SearchFields.TISSUE_NAMES,
+                SearchFields.TISSUE_ACCESSIONS,
+                SearchFields.TISSUE_ASCENDANTS_AS_TEXT,
+                SearchFields.DISEASE_NAMES,
+                SearchFields.DISEASE_ACCESSIONS,
+                SearchFields.DISEASE_ASCENDANTS_AS_TEXT,
+                SearchFields.CELLTYPE_NAMES,
+                SearchFields.CELLTYPE_ACCESSIONS,
+                SearchFields.CELLTYPE_ASCENDANTS,
+                SearchFields.SAMPLE_NAMES,
+                SearchFields.PTM_NAMES,
+                SearchFields.PTM_ACCESSIONS,
+                SearchFields.PTM_FACET_NAMES,
+                SearchFields.INSTRUMENT_MODELS,
+                SearchFields.INSTRUMENT_FACETS_NAMES,
+                SearchFields.QUANTIFICATION_METHODS_NAMES,
+                SearchFields.QUANTIFICATION_METHODS_ACCESSIONS,
+                SearchFields.EXPERIMENT_TYPES_NAMES,
+                SearchFields.EXPERIMENT_TYPES_ACCESSIONS,
+                SearchFields.ASSAY_ACCESSIONS,
+                SearchFields.PROJECT_TAGS,
+                SearchFields.PROJECT_TAGS_AS_TEXT,
+                SearchFields.PROTEIN_IDENTIFICATIONS,
+                SearchFields.PEPTIDE_SEQUENCES
+        };
+
+        // the query fields never change, so the boost string is only built once
+        private static final String QUERY_FIELDS = compileQueryFields();
+
+        // filter templates, in the order the filter queries are emitted
+        private static final FilterTemplate PTM_FILTER = new FilterTemplate(false, SearchFields.PTM_FACET_NAMES);
+        private static final FilterTemplate SPECIES_FILTER = new FilterTemplate(false,
+                SearchFields.SPECIES_NAMES, SearchFields.SPECIES_ACCESSIONS, SearchFields.SPECIES_ASCENDANTS_NAMES);
+        private static final FilterTemplate TISSUE_FILTER = new FilterTemplate(false,
+                SearchFields.TISSUE_NAMES, SearchFields.TISSUE_ACCESSIONS, SearchFields.TISSUE_ASCENDANTS_NAMES);
+        private static final FilterTemplate DISEASE_FILTER = new FilterTemplate(false,
+                SearchFields.DISEASE_NAMES, SearchFields.DISEASE_ACCESSIONS, SearchFields.DISEASE_ASCENDANTS_NAMES);
+        // free text titles are hardly ever repeated, so they are kept out of Solr's filterCache
+        private static final FilterTemplate TITLE_FILTER = new FilterTemplate(true, SearchFields.TITLE);
+        private static final FilterTemplate INSTRUMENT_FILTER = new FilterTemplate(false, SearchFields.INSTRUMENT_FACETS_NAMES);
+        private static final FilterTemplate QUANTIFICATION_FILTER = new FilterTemplate(false,
+                SearchFields.QUANTIFICATION_METHODS_NAMES, SearchFields.QUANTIFICATION_METHODS_ACCESSIONS);
+        private static final FilterTemplate EXPERIMENT_TYPE_FILTER = new FilterTemplate(false,
+                SearchFields.EXPERIMENT_TYPES_NAMES, SearchFields.EXPERIMENT_TYPES_ACCESSIONS);
+        private static final FilterTemplate PROJECT_TAG_FILTER = new FilterTemplate(false, SearchFields.PROJECT_TAGS);
+
+        private static final Map<String, String> FACET_FIELDS;
+        static {
+            Map<String, String> facetFields = new LinkedHashMap<String, String>();
+            facetFields.put("species", SearchFields.SPECIES_ASCENDANTS_NAMES.getIndexName());
+            facetFields.put("tissue", SearchFields.TISSUE_ASCENDANTS_NAMES.getIndexName());
+            facetFields.put("ptms", SearchFields.PTM_FACET_NAMES.getIndexName());
+            facetFields.put("instrument", SearchFields.INSTRUMENT_FACETS_NAMES.getIndexName());
+            facetFields.put("projectTag", SearchFields.PROJECT_TAGS.getIndexName());
+            FACET_FIELDS = Collections.unmodifiableMap(facetFields);
+        }
+
+        private static String compileQueryFields() {
+            StringBuilder queryFields = new StringBuilder();
+            for (SearchFields field : QUERY_FIELD_LIST) {
+                if (queryFields.length() > 0) {
+                    queryFields.append(' ');
+                }
+                queryFields.append(field.getIndexName()).append('^').append(field.getFieldRelevance());
+            }
+            return queryFields.toString();
+        }
+
         protected static String buildQueryFields() {
-            return ""
-                    + SearchFields.TITLE.getIndexName() + "^" + SearchFields.TITLE.getFieldRelevance() + " "
-                    + SearchFields.DESCRIPTION.getIndexName() + "^" + SearchFields.DESCRIPTION.getFieldRelevance() + " "
-                    + SearchFields.ACCESSION.getIndexName() + "^" + SearchFields.ACCESSION.getFieldRelevance() + " "
-                    + SearchFields.PUBMED.getIndexName() + "^" + SearchFields.PUBMED.getFieldRelevance() + " "
-                    + SearchFields.SPECIES_NAMES.getIndexName() + "^" + SearchFields.SPECIES_NAMES.getFieldRelevance() + " "
-                    + SearchFields.SPECIES_ACCESSIONS.getIndexName() + "^" + SearchFields.SPECIES_ACCESSIONS.getFieldRelevance() + " "
-                    + SearchFields.SPECIES_ASCENDANTS_AS_TEXT.getIndexName() + "^" + SearchFields.SPECIES_ASCENDANTS_AS_TEXT.getFieldRelevance() + " "
-                    + SearchFields.TISSUE_NAMES.getIndexName() + "^" + SearchFields.TISSUE_NAMES.getFieldRelevance() + " "
-                    + SearchFields.TISSUE_ACCESSIONS.getIndexName() + "^" + SearchFields.TISSUE_ACCESSIONS.getFieldRelevance() + " "
-                    + SearchFields.TISSUE_ASCENDANTS_AS_TEXT.getIndexName() + "^" + SearchFields.TISSUE_ASCENDANTS_AS_TEXT.getFieldRelevance() + " "
-                    + SearchFields.DISEASE_NAMES.getIndexName() + "^" + SearchFields.DISEASE_NAMES.getFieldRelevance() + " "
-                    + SearchFields.DISEASE_ACCESSIONS.getIndexName() + "^" + SearchFields.DISEASE_ACCESSIONS.getFieldRelevance() + " "
-                    + SearchFields.DISEASE_ASCENDANTS_AS_TEXT.getIndexName() + "^" + SearchFields.DISEASE_ASCENDANTS_AS_TEXT.getFieldRelevance() + " "
-                    + SearchFields.CELLTYPE_NAMES.getIndexName() + "^" + SearchFields.CELLTYPE_NAMES.getFieldRelevance() + " "
-                    + SearchFields.CELLTYPE_ACCESSIONS.getIndexName() + "^" + SearchFields.CELLTYPE_ACCESSIONS.getFieldRelevance() + " "
-                    + SearchFields.CELLTYPE_ASCENDANTS.getIndexName() + "^" + SearchFields.CELLTYPE_ASCENDANTS.getFieldRelevance() + " "
-                    + SearchFields.SAMPLE_NAMES.getIndexName() + "^" + SearchFields.SAMPLE_NAMES.getFieldRelevance() + " "
-                    + SearchFields.PTM_NAMES.getIndexName() + "^" + SearchFields.PTM_NAMES.getFieldRelevance() + " "
-                    + SearchFields.PTM_ACCESSIONS.getIndexName() + "^" + SearchFields.PTM_ACCESSIONS.getFieldRelevance() + " "
-                    + SearchFields.PTM_FACET_NAMES.getIndexName() + "^" + SearchFields.PTM_FACET_NAMES.getFieldRelevance() + " "
-                    + SearchFields.INSTRUMENT_MODELS.getIndexName() + "^" + SearchFields.INSTRUMENT_MODELS.getFieldRelevance() + " "
-                    + SearchFields.INSTRUMENT_FACETS_NAMES.getIndexName() + "^" + SearchFields.INSTRUMENT_FACETS_NAMES.getFieldRelevance() + " "
-                    + SearchFields.QUANTIFICATION_METHODS_NAMES.getIndexName() + "^" + SearchFields.QUANTIFICATION_METHODS_NAMES.getFieldRelevance() + " "
-                    + SearchFields.QUANTIFICATION_METHODS_ACCESSIONS.getIndexName() + "^" + SearchFields.QUANTIFICATION_METHODS_ACCESSIONS.getFieldRelevance() + " "
-                    + SearchFields.EXPERIMENT_TYPES_NAMES.getIndexName() + "^" + SearchFields.EXPERIMENT_TYPES_NAMES.getFieldRelevance() + " "
-                    + SearchFields.EXPERIMENT_TYPES_ACCESSIONS.getIndexName() + "^" + SearchFields.EXPERIMENT_TYPES_ACCESSIONS.getFieldRelevance() + " "
-                    + SearchFields.ASSAY_ACCESSIONS.getIndexName() + "^" + SearchFields.ASSAY_ACCESSIONS.getFieldRelevance() + " "
-                    + SearchFields.PROJECT_TAGS.getIndexName() + "^" + SearchFields.PROJECT_TAGS.getFieldRelevance() + " "
-                    + SearchFields.PROJECT_TAGS_AS_TEXT.getIndexName() + "^" + SearchFields.PROJECT_TAGS_AS_TEXT.getFieldRelevance() + " "
-                    + SearchFields.PROTEIN_IDENTIFICATIONS.getIndexName() + "^" + SearchFields.PROTEIN_IDENTIFICATIONS.getFieldRelevance() + " "
-                    + SearchFields.PEPTIDE_SEQUENCES.getIndexName() + "^" + SearchFields.PEPTIDE_SEQUENCES.getFieldRelevance()
-                    ;
+            return QUERY_FIELDS;
+        }
+
+        /**
+         * @return the facets of a project search, keyed by the name of the matching filter parameter
+         *         (without the "Filter" suffix), so facet values can be passed on as filter values.
+         */
+        protected static Map<String, String> buildFacetFields() {
+            return FACET_FIELDS;
         }
 
         public static String buildQueryTerm(String term) {
@@ -319,6 +594,11 @@ public class ProjectController {
                 return "(id:PR* id:PX*^"+PX_RELEVANCE + ") AND (" + term +")"; // PX submissions are more relevant
         }
 
+        /**
+         * Builds one filter query per distinct filter value. Values are trimmed, blank and duplicated values
+         * are dropped and the values of each filter type are sorted, so equivalent searches result in the
+         * exact same filter queries (and can be answered from Solr's filterCache).
+         */
         protected static String[] buildQueryFilters(List<String> ptmsFilterList,
                                                     List<String> speciesFilterList,
                                                     List<String> tissueFilterList,
@@ -329,89 +609,86 @@ public class ProjectController {
                                                     List<String> experimentTypeFilterList,
                                                     List<String> projectTagFilterList) {
 
-            LinkedList<String> queryFilterList = new LinkedList<String>();
+            List<String> queryFilterList = new ArrayList<String>();
 
-            if (ptmsFilterList!=null) {
-                for (String filter : ptmsFilterList) {
-                    queryFilterList.add(SearchFields.PTM_FACET_NAMES.getIndexName() + ":\"" + filter
-//                        +"\" + OR "+ SearchFields.PTM_ACCESSIONS.getIndexName()+":\""+filter
-//                        +"\" + OR "+ SearchFields.PTM_NAMES.getIndexName()+":\""+filter
-                            + "\"");
-                }
+            PTM_FILTER.compile(ptmsFilterList, queryFilterList);
+            SPECIES_FILTER.compile(speciesFilterList, queryFilterList);
+            TISSUE_FILTER.compile(tissueFilterList, queryFilterList);
+            DISEASE_FILTER.compile(diseaseFilterList, queryFilterList);
+            TITLE_FILTER.compile(titleFilterList, queryFilterList);
+            INSTRUMENT_FILTER.compile(instrumentFilterList, queryFilterList);
+            QUANTIFICATION_FILTER.compile(quantificationFilterList, queryFilterList);
+            EXPERIMENT_TYPE_FILTER.compile(experimentTypeFilterList, queryFilterList);
+            PROJECT_TAG_FILTER.compile(projectTagFilterList, queryFilterList);
 
-            }
+            return queryFilterList.toArray(new String[queryFilterList.size()]);
+        }
 
-            if (speciesFilterList!=null) {
-                for (String filter : speciesFilterList) {
-                    queryFilterList.add(
-                            SearchFields.SPECIES_NAMES.getIndexName() + ":\"" + filter + "\" OR "
-                                    + SearchFields.SPECIES_ACCESSIONS.getIndexName() + ":\"" + filter + "\" OR "
-                                    + SearchFields.SPECIES_ASCENDANTS_NAMES.getIndexName() + ":\"" + filter + "\""
-                    );
-                }
+        /**
+         * Precompiled filter query of the form <code>field1:"value" OR field2:"value" ...</code>,
+         * only the (escaped) value has to be filled in for each request.
+         */
+        private static final class FilterTemplate {
 
-            }
+            private static final String NO_CACHE = "{!cache=false}";
 
-            if (tissueFilterList!=null) {
-                for (String filter : tissueFilterList) {
-                    queryFilterList.add(
-                            SearchFields.TISSUE_NAMES.getIndexName() + ":\"" + filter + "\" OR "
-                                    + SearchFields.TISSUE_ACCESSIONS.getIndexName() + ":\"" + filter + "\" OR "
-                                    + SearchFields.TISSUE_ASCENDANTS_NAMES.getIndexName() + ":\"" + filter + "\""
-                    );
-                }
-
-            }
+            // the constant fragments around the values: prefix, value, infix, value, ..., suffix
+            private final String[] fragments;
+            private final int fragmentsLength;
 
-            if (diseaseFilterList!=null) {
-                for (String filter : diseaseFilterList) {
-                    queryFilterList.add(
-                            SearchFields.DISEASE_NAMES.getIndexName() + ":\"" + filter + "\" OR "
-                                    + SearchFields.DISEASE_ACCESSIONS.getIndexName() + ":\"" + filter + "\" OR "
-                                    + SearchFields.DISEASE_ASCENDANTS_NAMES.getIndexName() + ":\"" + filter + "\""
-                    );
+            private FilterTemplate(boolean uncached, SearchFields... fields) {
+                fragments = new String[fields.length + 1];
+                for (int i = 0; i < fields.length; i++) {
+                    fragments[i] = (i == 0 ? (uncached ? NO_CACHE : "") : "\" OR ") + fields[i].getIndexName() + ":\"";
                 }
-
-            }
-
-            if (titleFilterList!=null) {
-                for (String filter : titleFilterList) {
-                    queryFilterList.add(SearchFields.TITLE.getIndexName() + ":\"" + filter + "\"");
+                fragments[fields.length] = "\"";
+                int length = 0;
+                for (String fragment : fragments) {
+                    length += fragment.length();
                 }
-
+                fragmentsLength = length;
             }
 
-            if (instrumentFilterList!=null) {
-                for (String filter : instrumentFilterList) {
-                    queryFilterList.add(SearchFields.INSTRUMENT_FACETS_NAMES.getIndexName() + ":\"" + filter
-//                        +"\" + OR "+ SearchFields.INSTRUMENT_MODELS.getIndexName()+":\""+filter
-                            + "\"");
+            private void compile(List<String> values, List<String> queryFilterList) {
+                if (values == null || values.isEmpty()) {
+                    return;
                 }
-
-            }
-
-            if (quantificationFilterList!=null) {
-                for (String filter : quantificationFilterList) {
-                    queryFilterList.add(SearchFields.QUANTIFICATION_METHODS_NAMES.getIndexName() + ":\"" + filter + "\" OR " + SearchFields.QUANTIFICATION_METHODS_ACCESSIONS.getIndexName() + ":\"" + filter + "\"");
+                SortedSet<String> canonicalValues = new TreeSet<String>();
+                for (String value : values) {
+                    if (value != null) {
+                        String trimmed = value.trim();
+                        if (!trimmed.isEmpty()) {
+                            canonicalValues.add(escape(trimmed));
+                        }
+                    }
                 }
-
-            }
-
-            if (experimentTypeFilterList!=null) {
-                for (String filter : experimentTypeFilterList) {
-                    queryFilterList.add(SearchFields.EXPERIMENT_TYPES_NAMES.getIndexName() + ":\"" + filter + "\" OR " + SearchFields.EXPERIMENT_TYPES_ACCESSIONS.getIndexName() + ":\"" + filter + "\"");
+                for (String value : canonicalValues) {
+                    StringBuilder filter = new StringBuilder(fragmentsLength + (fragments.length - 1) * value.length());
+                    filter.append(fragments[0]);
+                    for (int i = 1; i < fragments.length; i++) {
+                        filter.append(value).append(fragments[i]);
+                    }
+                    queryFilterList.add(filter.toString());
                 }
-
             }
 
-            if (projectTagFilterList!=null) {
-                for (String filter : projectTagFilterList) {
-                    queryFilterList.add(SearchFields.PROJECT_TAGS.getIndexName() + ":\"" + filter + "\"");
+            /**
+             * Escapes the characters that would end the quoted phrase early.
+             */
+            private static String escape(String value) {
+                if (value.indexOf('"') < 0 && value.indexOf('\\') < 0) {
+                    return value;
                 }
-
+                StringBuilder escaped = new StringBuilder(value.length() + 8);
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    if (c == '"' || c == '\\') {
+                        escaped.append('\\');
+                    }
+                    escaped.append(c);
+                }
+                return escaped.toString();
             }
-
-            return queryFilterList.toArray(new String[queryFilterList.size()]);
         }
     }
 
@@ -420,7 +697,7 @@ public class ProjectController {
      * @author Jose A. Dianes
      * @version $Id$
      */
-    private enum SearchFields {
+    enum SearchFields {
         ACCESSION("id", 3),
         TITLE("project_title", 1),
         DESCRIPTION("project_description", 1),
@@ -0,0 +1,303 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.search.service.ProjectSearchSummary;
+import uk.ac.ebi.pride.archive.security.assay.AssaySecureService;
+import uk.ac.ebi.pride.archive.security.project.ProjectSecureService;
+import uk.ac.ebi.pride.archive.web.service.model.assay.AssayAccessionComparator;
+import uk.ac.ebi.pride.archive.web.service.model.assay.AssayDetail;
+import uk.ac.ebi.pride.archive.web.service.model.project.ProjectDetail;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectListSearchService;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectSearchResult;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectSolrQueries;
+import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
+import uk.ac.ebi.pride.archive.web.service.util.ProjectAggregates;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read model of the published projects: prebuilt project and assay documents, so the detail
+ * requests of public data are answered with a single map lookup instead of loading and mapping
+ * the project (or assay) object graph.
+ *
+ * The model is maintained incrementally by a scheduled job: every run adds the documents of newly
+ * published projects (the project index only contains published projects), drops the documents
+ * of projects no longer in the index and rebuilds a batch of the oldest documents, so every
+ * document is refreshed regularly. Documents are built with anonymous access rights, so they
+ * only contain what is visible to everyone.
+ *
+ * Changes to a published project are therefore only visible after its document has been refreshed:
+ * with 500 documents refreshed every 10 minutes, a document of a model of 10,000 projects is at
+ * most about 3.5 hours old. Updates that have to be visible sooner require the project to be
+ * evicted (DELETE /cache/project), so it is served from the database until it is rebuilt.
+ *
+ * The documents are built by a few threads in parallel, so the initial build of the model is done
+ * in a single run. The model is bounded in size: projects beyond the limits are not added and keep
+ * being served from the database.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class ProjectReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectReadModel.class);
+
+    private static final int ACCESSION_PAGE_SIZE = 1000;
+    // bounds the database load, documents are built by this many threads
+    private static final int BUILD_THREADS = 4;
+    // bounds the duration of a single run, large enough for the initial build
+    private static final int MAX_NEW_DOCUMENTS_PER_RUN = 20000;
+    // bound the memory used by the model
+    private static final int MAX_PROJECT_DOCUMENTS = 20000;
+    private static final int MAX_ASSAY_DOCUMENTS = 200000;
+    // bounds the staleness of the documents, see above
+    private static final int REFRESHED_DOCUMENTS_PER_RUN = 500;
+    private static final long REFRESH_INTERVAL_MILLIS = 10 * 60 * 1000;
+
+    @Autowired
+    private ProjectListSearchService projectListSearchService;
+
+    @Autowired
+    private ProjectSecureService projectService;
+
+    @Autowired
+    private AssaySecureService assayService;
+
+    private final Map<String, ProjectDocument> projects = new ConcurrentHashMap<>();
+    private final Map<String, AssayDetail> assays = new ConcurrentHashMap<>();
+
+    private ExecutorService buildExecutor;
+
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        buildExecutor = Executors.newFixedThreadPool(BUILD_THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "project-read-model-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    /**
+     * @return the document of a published project, or null if the project is not (yet) part of the read model.
+     */
+    public ProjectDetail getProject(String projectAccession) {
+        ProjectDocument document = projects.get(projectAccession);
+        return document == null ? null : document.project;
+    }
+
+    /**
+     * @return the assay documents of a published project sorted by accession, or null if the project
+     *         is not (yet) part of the read model.
+     */
+    public List<AssayDetail> getProjectAssays(String projectAccession) {
+        ProjectDocument document = projects.get(projectAccession);
+        return document == null ? null : document.assays;
+    }
+
+    /**
+     * @return the document of an assay of a published project, or null if it is not (yet) part of the read model.
+     */
+    public AssayDetail getAssay(String assayAccession) {
+        return assays.get(assayAccession);
+    }
+
+    /**
+     * Drops the documents of a project (and its assays), e.g. after the project has been updated.
+     * They will be rebuilt by the next refresh.
+     */
+    public void evict(String projectAccession) {
+        ProjectDocument removed = projects.remove(projectAccession);
+        if (removed != null) {
+            for (AssayDetail assay : removed.assays) {
+                assays.remove(assay.getAssayAccession());
+            }
+        }
+    }
+
+    @Scheduled(initialDelay = 60000, fixedDelay = REFRESH_INTERVAL_MILLIS)
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken(
+                ProjectReadModel.class.getName(), "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        try {
+            Set<String> published = findPublishedAccessions();
+
+            int removed = 0;
+            for (String accession : new ArrayList<>(projects.keySet())) {
+                if (!published.contains(accession)) {
+                    evict(accession);
+                    removed++;
+                }
+            }
+
+            List<String> missing = new ArrayList<>();
+            for (String accession : published) {
+                if (missing.size() >= MAX_NEW_DOCUMENTS_PER_RUN || projects.size() + missing.size() >= MAX_PROJECT_DOCUMENTS) {
+                    break;
+                }
+                if (!projects.containsKey(accession)) {
+                    missing.add(accession);
+                }
+            }
+            buildAll(missing);
+
+            List<ProjectDocument> oldest = new ArrayList<>(projects.values());
+            Collections.sort(oldest, new Comparator<ProjectDocument>() {
+                @Override
+                public int compare(ProjectDocument a, ProjectDocument b) {
+                    return Long.compare(a.builtAt, b.builtAt);
+                }
+            });
+            List<String> outdated = new ArrayList<>();
+            for (ProjectDocument document : oldest) {
+                // documents added in this run are not refreshed again
+                if (outdated.size() >= REFRESHED_DOCUMENTS_PER_RUN || document.builtAt >= start) {
+                    break;
+                }
+                outdated.add(document.project.getAccession());
+            }
+            buildAll(outdated);
+
+            logger.debug("Refreshed project read model in {}ms: {} added, {} refreshed, {} removed, {} projects in total",
+                    System.currentTimeMillis() - start, missing.size(), outdated.size(), removed, projects.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // keep serving the current documents
+            logger.error("Failed to refresh the project read model", e);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private Set<String> findPublishedAccessions() {
+        SolrQuery searchQuery = ProjectSolrQueries.newSearchQuery(
+                ProjectController.SolrQueryBuilder.buildQueryTerm(""),
+                ProjectController.SolrQueryBuilder.buildQueryFields(),
+                new String[0]);
+        Set<String> accessions = new LinkedHashSet<>();
+        // the total is only known with the first page, each page comes with the current one
+        long projectCount = 1;
+        for (int offset = 0; offset < projectCount; offset += ACCESSION_PAGE_SIZE) {
+            ProjectSearchResult page = projectListSearchService.searchProjects(searchQuery,
+                    offset, ACCESSION_PAGE_SIZE, ProjectController.SearchFields.ACCESSION.getIndexName(), "asc");
+            projectCount = page.getNumFound();
+            if (page.getProjects().isEmpty() && offset < projectCount) {
+                // an incomplete list would remove the documents of the missing projects
+                throw new IllegalStateException("Project index returned no results at offset " + offset + " of " + projectCount);
+            }
+            for (ProjectSearchSummary project : page.getProjects()) {
+                accessions.add(project.getProjectAccession());
+            }
+        }
+        return accessions;
+    }
+
+    /**
+     * Builds the documents of the projects in parallel, with the security context of the calling thread.
+     */
+    private void buildAll(List<String> projectAccessions) throws InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<>(projectAccessions.size());
+        for (final String accession : projectAccessions) {
+            tasks.add(new DelegatingSecurityContextCallable<>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    build(accession);
+                    return null;
+                }
+            }));
+        }
+        buildExecutor.invokeAll(tasks);
+    }
+
+    private void build(String projectAccession) {
+        try {
+            ProjectSummary projectSummary = projectService.findByAccession(projectAccession);
+            if (projectSummary == null || !projectSummary.isPublicProject()) {
+                evict(projectAccession);
+                return;
+            }
+            Collection<AssaySummary> assaySummaries = assayService.findAllByProjectAccession(projectAccession);
+            List<AssayDetail> assayDetails = assaySummaries == null
+                    ? new ArrayList<AssayDetail>()
+                    : ObjectMapper.mapAssaySummariesToWSAssayDetails(assaySummaries);
+            for (AssayDetail assayDetail : assayDetails) {
+                // the mapper relies on the ID mapping cache for this, which may not be populated yet
+                assayDetail.setProjectAccession(projectAccession);
+            }
+            Collections.sort(assayDetails, new AssayAccessionComparator<AssayDetail>());
+            if (!projects.containsKey(projectAccession) && assays.size() + assayDetails.size() > MAX_ASSAY_DOCUMENTS) {
+                logger.debug("Project {} not added to the read model, as the maximum number of assays is reached", projectAccession);
+                return;
+            }
+
+            ProjectDocument document = new ProjectDocument(
+                    ObjectMapper.mapProjectSummary2WSProjectDetail(projectSummary, ProjectAggregates.of(assaySummaries)),
+                    Collections.unmodifiableList(assayDetails));
+            ProjectDocument previous = projects.put(projectAccession, document);
+            for (AssayDetail assay : assayDetails) {
+                assays.put(assay.getAssayAccession(), assay);
+            }
+            if (previous != null) {
+                for (AssayDetail assay : previous.assays) {
+                    if (!document.containsAssay(assay.getAssayAccession())) {
+                        assays.remove(assay.getAssayAccession());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // e.g. access denied, because the project is no longer public
+            logger.warn("Could not build read model documents of project {}: {}", projectAccession, e.getMessage());
+            evict(projectAccession);
+        }
+    }
+
+    /**
+     * The documents of a project.
+     */
+    private static class ProjectDocument {
+        private final ProjectDetail project;
+        private final List<AssayDetail> assays;
+        private final long builtAt = System.currentTimeMillis();
+
+        private ProjectDocument(ProjectDetail project, List<AssayDetail> assays) {
+            this.project = project;
+            this.assays = assays;
+        }
+
+        private boolean containsAssay(String assayAccession) {
+            for (AssayDetail assay : assays) {
+                if (assay.getAssayAccession().equals(assayAccession)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+import uk.ac.ebi.pride.archive.web.service.cache.Caches;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectFacetSearchService;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectListSearchService;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectSearchResult;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectSolrQueries;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short lived, bounded result cache in front of the project search. A small number of queries
+ * (first and foremost the default query without search term or filters) accounts for most of
+ * the search requests, so those are answered from memory instead of Solr most of the time.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class ProjectSearchCache {
+
+    private static final int MAX_CACHED_QUERIES = 1000;
+    private static final int TIME_TO_LIVE_SECONDS = 60;
+
+    @Autowired
+    private ProjectListSearchService projectListSearchService;
+
+    @Autowired
+    private ProjectFacetSearchService projectFacetSearchService;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    private Cache<ListKey, ProjectSearchResult> listCache;
+    private Cache<ProjectSearchQuery, Long> countCache;
+    private Cache<ProjectSearchQuery, Map<String, Map<String, Long>>> facetCache;
+
+    @PostConstruct
+    public void init() {
+        listCache = cacheRegistry.register("project-list", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_QUERIES)
+                .expireAfterWrite(TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS)
+                .recordStats()
+                .<ListKey, ProjectSearchResult>build());
+        countCache = cacheRegistry.register("project-count", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_QUERIES)
+                .expireAfterWrite(TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS)
+                .recordStats()
+                .<ProjectSearchQuery, Long>build());
+        facetCache = cacheRegistry.register("project-facets", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_QUERIES)
+                .expireAfterWrite(TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS)
+                .recordStats()
+                .<ProjectSearchQuery, Map<String, Map<String, Long>>>build());
+    }
+
+    /**
+     * @see ProjectListSearchService#searchProjects(String, String, String[], int, int, String, String)
+     */
+    public ProjectSearchResult searchProjects(final ProjectSearchQuery query, final int start, final int rows,
+                                              final String sortBy, final String order) {
+        return Caches.get(listCache, new ListKey(query, start, rows, sortBy, order), new Callable<ProjectSearchResult>() {
+            @Override
+            public ProjectSearchResult call() {
+                ProjectSearchResult result = projectListSearchService.searchProjects(
+                        buildSearchQuery(query), start, rows, sortBy, order);
+                // Solr counted the matches for this page anyway, so a following count request needs no query
+                countCache.put(query, result.getNumFound());
+                return result;
+            }
+        });
+    }
+
+    /**
+     * @see ProjectListSearchService#countProjects(SolrQuery)
+     */
+    public long countProjects(final ProjectSearchQuery query) {
+        return Caches.get(countCache, query, new Callable<Long>() {
+            @Override
+            public Long call() {
+                return projectListSearchService.countProjects(buildSearchQuery(query));
+            }
+        });
+    }
+
+    /**
+     * @return the project counts per facet value, keyed by facet name (see {@link ProjectController.SolrQueryBuilder#buildFacetFields()}).
+     */
+    public Map<String, Map<String, Long>> facetProjects(final ProjectSearchQuery query) {
+        return Caches.get(facetCache, query, new Callable<Map<String, Map<String, Long>>>() {
+            @Override
+            public Map<String, Map<String, Long>> call() {
+                Map<String, String> facetFields = ProjectController.SolrQueryBuilder.buildFacetFields();
+                Map<String, Map<String, Long>> counts = projectFacetSearchService.getFacetCounts(
+                        buildSearchQuery(query), facetFields.values().toArray(new String[facetFields.size()]));
+                Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+                for (Map.Entry<String, String> facetField : facetFields.entrySet()) {
+                    Map<String, Long> facetCounts = counts == null ? null : counts.get(facetField.getValue());
+                    facets.put(facetField.getKey(), facetCounts == null
+                            ? Collections.<String, Long>emptyMap()
+                            : Collections.unmodifiableMap(facetCounts));
+                }
+                return Collections.unmodifiableMap(facets);
+            }
+        });
+    }
+
+    /**
+     * @return the Solr query of a search, shared by the project list, the project count and the facet counts.
+     */
+    static SolrQuery buildSearchQuery(ProjectSearchQuery query) {
+        return ProjectSolrQueries.newSearchQuery(
+                ProjectController.SolrQueryBuilder.buildQueryTerm(query.getTerm()),
+                ProjectController.SolrQueryBuilder.buildQueryFields(),
+                buildQueryFilters(query));
+    }
+
+    static String[] buildQueryFilters(ProjectSearchQuery query) {
+        return ProjectController.SolrQueryBuilder.buildQueryFilters(
+                query.getPtmsFilter(),
+                query.getSpeciesFilter(),
+                query.getTissueFilter(),
+                query.getDiseaseFilter(),
+                query.getTitleFilter(),
+                query.getInstrumentFilter(),
+                query.getQuantificationFilter(),
+                query.getExperimentTypeFilter(),
+                query.getProjectTagFilter());
+    }
+
+    /**
+     * Cache key of a page of search results.
+     */
+    private static class ListKey {
+        private final ProjectSearchQuery query;
+        private final int start;
+        private final int rows;
+        private final String sortBy;
+        private final String order;
+
+        private ListKey(ProjectSearchQuery query, int start, int rows, String sortBy, String order) {
+            this.query = query;
+            this.start = start;
+            this.rows = rows;
+            // sorting values are passed on to Solr as they are, so they are not normalised
+            this.sortBy = sortBy == null ? "" : sortBy;
+            this.order = order == null ? "" : order;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ListKey that = (ListKey) o;
+
+            return start == that.start
+                    && rows == that.rows
+                    && query.equals(that.query)
+                    && sortBy.equals(that.sortBy)
+                    && order.equals(that.order);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = query.hashCode();
+            result = 31 * result + start;
+            result = 31 * result + rows;
+            result = 31 * result + sortBy.hashCode();
+            result = 31 * result + order.hashCode();
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import java.util.*;
+
+/**
+ * Canonical form of a project search: the trimmed search term and the filter values of each filter
+ * type trimmed, de-duplicated and sorted. Equivalent requests (e.g. with filter values in a different
+ * order or repeated) result in equal objects, so this can be used as cache key.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class ProjectSearchQuery {
+
+    private final String term;
+    private final List<String> ptmsFilter;
+    private final List<String> speciesFilter;
+    private final List<String> tissueFilter;
+    private final List<String> diseaseFilter;
+    private final List<String> titleFilter;
+    private final List<String> instrumentFilter;
+    private final List<String> quantificationFilter;
+    private final List<String> experimentTypeFilter;
+    private final List<String> projectTagFilter;
+    private final int hashCode;
+
+    public ProjectSearchQuery(String term,
+                              String[] ptmsFilter,
+                              String[] speciesFilter,
+                              String[] tissueFilter,
+                              String[] diseaseFilter,
+                              String[] titleFilter,
+                              String[] instrumentFilter,
+                              String[] quantificationFilter,
+                              String[] experimentTypeFilter,
+                              String[] projectTagFilter) {
+        this.term = term == null ? "" : term.trim();
+        this.ptmsFilter = canonical(ptmsFilter);
+        this.speciesFilter = canonical(speciesFilter);
+        this.tissueFilter = canonical(tissueFilter);
+        this.diseaseFilter = canonical(diseaseFilter);
+        this.titleFilter = canonical(titleFilter);
+        this.instrumentFilter = canonical(instrumentFilter);
+        this.quantificationFilter = canonical(quantificationFilter);
+        this.experimentTypeFilter = canonical(experimentTypeFilter);
+        this.projectTagFilter = canonical(projectTagFilter);
+        this.hashCode = Arrays.hashCode(new Object[]{this.term, this.ptmsFilter, this.speciesFilter, this.tissueFilter,
+                this.diseaseFilter, this.titleFilter, this.instrumentFilter, this.quantificationFilter,
+                this.experimentTypeFilter, this.projectTagFilter});
+    }
+
+    private static List<String> canonical(String[] values) {
+        if (values == null || values.length == 0) {
+            return Collections.emptyList();
+        }
+        SortedSet<String> set = new TreeSet<>();
+        for (String value : values) {
+            if (value != null && !value.trim().isEmpty()) {
+                set.add(value.trim());
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(set));
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public List<String> getPtmsFilter() {
+        return ptmsFilter;
+    }
+
+    public List<String> getSpeciesFilter() {
+        return speciesFilter;
+    }
+
+    public List<String> getTissueFilter() {
+        return tissueFilter;
+    }
+
+    public List<String> getDiseaseFilter() {
+        return diseaseFilter;
+    }
+
+    public List<String> getTitleFilter() {
+        return titleFilter;
+    }
+
+    public List<String> getInstrumentFilter() {
+        return instrumentFilter;
+    }
+
+    public List<String> getQuantificationFilter() {
+        return quantificationFilter;
+    }
+
+    public List<String> getExperimentTypeFilter() {
+        return experimentTypeFilter;
+    }
+
+    public List<String> getProjectTagFilter() {
+        return projectTagFilter;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ProjectSearchQuery that = (ProjectSearchQuery) o;
+
+        return hashCode == that.hashCode
+                && term.equals(that.term)
+                && ptmsFilter.equals(that.ptmsFilter)
+                && speciesFilter.equals(that.speciesFilter)
+                && tissueFilter.equals(that.tissueFilter)
+                && diseaseFilter.equals(that.diseaseFilter)
+                && titleFilter.equals(that.titleFilter)
+                && instrumentFilter.equals(that.instrumentFilter)
+                && quantificationFilter.equals(that.quantificationFilter)
+                && experimentTypeFilter.equals(that.experimentTypeFilter)
+                && projectTagFilter.equals(that.projectTagFilter);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectSearchQuery{" +
+                "term='" + term + '\'' +
+                ", ptms=" + ptmsFilter +
+                ", species=" + speciesFilter +
+                ", tissue=" + tissueFilter +
+                ", disease=" + diseaseFilter +
+                ", title=" + titleFilter +
+                ", instrument=" + instrumentFilter +
+                ", quantification=" + quantificationFilter +
+                ", experimentType=" + experimentTypeFilter +
+                ", projectTag=" + projectTagFilter +
+                '}';
+    }
+}
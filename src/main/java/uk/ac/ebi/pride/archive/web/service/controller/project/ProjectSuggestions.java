@@ -0,0 +1,113 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.search.service.ProjectSearchSummary;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectFacetSearchService;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectListSearchService;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectSearchResult;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectSolrQueries;
+import uk.ac.ebi.pride.archive.web.service.util.SuggestionIndex;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typeahead suggestions for the project search, served from an in-memory {@link SuggestionIndex}.
+ * The index is periodically rebuilt from the project titles and the species, tissue, disease,
+ * PTM and instrument values of the project index; lookups never query Solr. Values of newly
+ * published projects are suggested after the next hourly rebuild.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class ProjectSuggestions {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectSuggestions.class);
+
+    // upper bound of the index size (roughly 100 bytes per key)
+    private static final int MAX_INDEX_KEYS = 1000000;
+    private static final int TITLE_PAGE_SIZE = 1000;
+    private static final long REBUILD_INTERVAL_MILLIS = 60 * 60 * 1000;
+
+    private static final Map<String, String> SUGGESTION_FIELDS = new LinkedHashMap<>();
+    static {
+        SUGGESTION_FIELDS.put("species", ProjectController.SearchFields.SPECIES_ASCENDANTS_NAMES.getIndexName());
+        SUGGESTION_FIELDS.put("tissue", ProjectController.SearchFields.TISSUE_ASCENDANTS_NAMES.getIndexName());
+        SUGGESTION_FIELDS.put("disease", ProjectController.SearchFields.DISEASE_ASCENDANTS_NAMES.getIndexName());
+        SUGGESTION_FIELDS.put("ptms", ProjectController.SearchFields.PTM_FACET_NAMES.getIndexName());
+        SUGGESTION_FIELDS.put("instrument", ProjectController.SearchFields.INSTRUMENT_FACETS_NAMES.getIndexName());
+    }
+
+    @Autowired
+    private ProjectFacetSearchService projectFacetSearchService;
+
+    @Autowired
+    private ProjectListSearchService projectListSearchService;
+
+    private volatile SuggestionIndex index = SuggestionIndex.EMPTY;
+
+    /**
+     * @param prefix the start of a word of the suggested values.
+     * @param limit the maximum number of suggestions.
+     * @return the matching suggestions, most frequent first.
+     */
+    public List<SuggestionIndex.Suggestion> suggest(String prefix, int limit) {
+        return index.lookup(prefix, limit);
+    }
+
+    @Scheduled(initialDelay = 10000, fixedDelay = REBUILD_INTERVAL_MILLIS)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            SuggestionIndex.Builder builder = new SuggestionIndex.Builder(MAX_INDEX_KEYS);
+            SolrQuery searchQuery = ProjectSolrQueries.newSearchQuery(
+                    ProjectController.SolrQueryBuilder.buildQueryTerm(""),
+                    ProjectController.SolrQueryBuilder.buildQueryFields(),
+                    new String[0]);
+
+            // annotation values, weighted by the number of projects
+            Map<String, Map<String, Long>> facetCounts = projectFacetSearchService.getFacetCounts(searchQuery,
+                    SUGGESTION_FIELDS.values().toArray(new String[SUGGESTION_FIELDS.size()]), -1);
+            boolean full = false;
+            for (Map.Entry<String, String> field : SUGGESTION_FIELDS.entrySet()) {
+                Map<String, Long> counts = facetCounts == null ? null : facetCounts.get(field.getValue());
+                if (counts != null) {
+                    for (Map.Entry<String, Long> count : counts.entrySet()) {
+                        full |= !builder.add(count.getKey(), field.getKey(), count.getValue());
+                    }
+                }
+            }
+
+            // project titles, each title counts once
+            long projectCount = 1;
+            for (int offset = 0; offset < projectCount && !full; offset += TITLE_PAGE_SIZE) {
+                ProjectSearchResult projects = projectListSearchService.searchProjects(searchQuery,
+                        offset, TITLE_PAGE_SIZE, ProjectController.SearchFields.ACCESSION.getIndexName(), "asc");
+                if (projects.getProjects().isEmpty()) {
+                    break;
+                }
+                projectCount = projects.getNumFound();
+                for (ProjectSearchSummary project : projects.getProjects()) {
+                    full |= !builder.add(project.getTitle(), "title", 1);
+                }
+            }
+            if (full) {
+                logger.warn("Suggestion index reached its maximum size of " + MAX_INDEX_KEYS + " keys, some values are left out");
+            }
+
+            SuggestionIndex rebuilt = builder.build();
+            index = rebuilt;
+            logger.info("Rebuilt suggestion index with " + rebuilt.size() + " values in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (RuntimeException e) {
+            // keep serving the previous index
+            logger.error("Failed to rebuild the suggestion index", e);
+        }
+    }
+}
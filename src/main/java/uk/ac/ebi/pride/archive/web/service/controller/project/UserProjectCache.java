@@ -0,0 +1,77 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.repo.user.service.UserSummary;
+import uk.ac.ebi.pride.archive.security.user.UserSecureService;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+import uk.ac.ebi.pride.archive.web.service.cache.Caches;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short lived cache of the projects accessible to a user, keyed by the name (email) of the
+ * authenticated user. Clients tend to list their projects repeatedly, e.g. when polling for
+ * the state of a submission, this saves the user and the project lookup on those requests.
+ * Note: the key has to be the name of the authenticated principal, never a user supplied value.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class UserProjectCache {
+
+    private static final int MAX_CACHED_USERS = 5000;
+    private static final int TIME_TO_LIVE_SECONDS = 300;
+
+    @Autowired
+    private UserSecureService userServiceImpl;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    private Cache<String, List<ProjectSummary>> userProjects;
+
+    @PostConstruct
+    public void init() {
+        userProjects = cacheRegistry.register("user-projects", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_USERS)
+                .expireAfterWrite(TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS)
+                .recordStats()
+                .<String, List<ProjectSummary>>build());
+    }
+
+    /**
+     * @param userEmail the name of the authenticated user.
+     * @return the projects of the user, an empty list if the user has no projects.
+     */
+    public List<ProjectSummary> getProjects(final String userEmail) {
+        return Caches.get(userProjects, userEmail, new Callable<List<ProjectSummary>>() {
+            @Override
+            public List<ProjectSummary> call() {
+                UserSummary user = userServiceImpl.findByEmail(userEmail);
+                Collection<ProjectSummary> projects = userServiceImpl.findAllProjectsById(user.getId());
+                if (projects == null || projects.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                return Collections.unmodifiableList(new ArrayList<>(projects));
+            }
+        });
+    }
+
+    /**
+     * Drops the cached projects of a user, e.g. after a new submission of the user has been loaded.
+     */
+    public void invalidate(String userEmail) {
+        userProjects.invalidate(userEmail);
+    }
+}
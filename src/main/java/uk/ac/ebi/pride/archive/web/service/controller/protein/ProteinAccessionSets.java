@@ -0,0 +1,277 @@
+package uk.ac.ebi.pride.archive.web.service.controller.protein;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.social.InternalServerErrorException;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.repo.assay.service.AssayAccessException;
+import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.security.assay.AssaySecureService;
+import uk.ac.ebi.pride.archive.security.project.ProjectSecureService;
+import uk.ac.ebi.pride.archive.security.protein.ProteinIdentificationSecureSearchService;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+import uk.ac.ebi.pride.archive.web.service.error.exception.ResourceNotFoundException;
+import uk.ac.ebi.pride.archive.web.service.util.SortedIntSets;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes set operations on the unique protein accessions of projects and assays.
+ * Accessions are dictionary encoded to ints, so the per dataset sets can be kept as
+ * sorted int arrays and combined with linear merges. The sets of public datasets are
+ * cached, access to private datasets is checked (and their sets retrieved) on every request.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class ProteinAccessionSets {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProteinAccessionSets.class);
+
+    // upper bounds for the memory used by the dictionary and the cached sets
+    private static final int MAX_DICTIONARY_SIZE = 5000000;
+    private static final long MAX_CACHED_ACCESSIONS = 10000000;
+
+    public enum SetOperation {
+        INTERSECTION, UNION, DIFFERENCE;
+
+        public static SetOperation fromName(String name) {
+            for (SetOperation operation : values()) {
+                if (operation.name().equalsIgnoreCase(name)) {
+                    return operation;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Autowired
+    private ProteinIdentificationSecureSearchService proteinIdService;
+
+    @Autowired
+    private ProjectSecureService projectService;
+
+    @Autowired
+    private AssaySecureService assayService;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    private volatile Generation generation = new Generation();
+    // sets of the public datasets, each encoded with the dictionary of a generation
+    private Cache<String, EncodedSet> cachedSets;
+
+    @PostConstruct
+    public void init() {
+        cachedSets = cacheRegistry.register("protein-accession-sets", CacheBuilder.newBuilder()
+                .maximumWeight(MAX_CACHED_ACCESSIONS)
+                .weigher(new Weigher<String, EncodedSet>() {
+                    @Override
+                    public int weigh(String key, EncodedSet value) {
+                        return value.set.length + 1;
+                    }
+                })
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .recordStats()
+                .<String, EncodedSet>build());
+    }
+
+    /**
+     * @param operation the operation to apply. For DIFFERENCE the first dataset (projects before assays)
+     *                  is reduced by all other datasets.
+     * @param projectAccessions the projects to include.
+     * @param assayAccessions the assays to include.
+     * @return the resulting protein accessions in alphabetical order.
+     */
+    public List<String> compute(SetOperation operation, List<String> projectAccessions, List<String> assayAccessions) {
+        // all sets of one request have to be encoded with the same dictionary
+        Generation current = currentGeneration();
+
+        List<int[]> sets = new ArrayList<>(projectAccessions.size() + assayAccessions.size());
+        for (String projectAccession : projectAccessions) {
+            sets.add(getProjectSet(current, projectAccession));
+        }
+        for (String assayAccession : assayAccessions) {
+            sets.add(getAssaySet(current, assayAccession));
+        }
+        if (sets.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+
+        int[] result;
+        switch (operation) {
+            case INTERSECTION:
+                // start with the smallest sets, so the intermediate results shrink as fast as possible
+                List<int[]> bySize = new ArrayList<>(sets);
+                Collections.sort(bySize, (a, b) -> Integer.compare(a.length, b.length));
+                result = bySize.get(0);
+                for (int i = 1; i < bySize.size() && result.length > 0; i++) {
+                    result = SortedIntSets.intersection(result, bySize.get(i));
+                }
+                break;
+            case UNION:
+                result = sets.get(0);
+                for (int i = 1; i < sets.size(); i++) {
+                    result = SortedIntSets.union(result, sets.get(i));
+                }
+                break;
+            case DIFFERENCE:
+                result = sets.get(0);
+                for (int i = 1; i < sets.size() && result.length > 0; i++) {
+                    result = SortedIntSets.difference(result, sets.get(i));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported set operation: " + operation);
+        }
+
+        List<String> accessions = current.dictionary.decode(result);
+        Collections.sort(accessions);
+        return accessions;
+    }
+
+    private int[] getProjectSet(Generation current, String projectAccession) {
+        // the secure service makes sure the user has access to the project
+        ProjectSummary projectSummary = projectService.findByAccession(projectAccession);
+        if (projectSummary == null) {
+            throw new ResourceNotFoundException("No project found for accession: " + projectAccession);
+        }
+        String key = "project:" + projectAccession;
+        if (projectSummary.isPublicProject()) {
+            EncodedSet cached = cachedSets.getIfPresent(key);
+            // sets of a previous generation can not be combined with the current dictionary
+            if (cached != null && cached.generation == current) {
+                return cached.set;
+            }
+        }
+        int[] set = current.dictionary.encode(proteinIdService.getUniqueProteinAccessionsByProjectAccession(projectAccession));
+        if (projectSummary.isPublicProject()) {
+            cachedSets.put(key, new EncodedSet(current, set));
+        }
+        return set;
+    }
+
+    private int[] getAssaySet(Generation current, String assayAccession) {
+        // the secure services make sure the user has access to the assay
+        AssaySummary assaySummary;
+        try {
+            assaySummary = assayService.findByAccession(assayAccession);
+        } catch (AssayAccessException aae) {
+            logger.error("AssayAccessException trying to access assay: " + assayAccession, aae);
+            throw new InternalServerErrorException("AssayAccessException for " + assayAccession);
+        }
+        if (assaySummary == null) {
+            throw new ResourceNotFoundException("No assay found for accession: " + assayAccession);
+        }
+        ProjectSummary projectSummary = projectService.findById(assaySummary.getProjectId());
+        boolean publicAssay = projectSummary != null && projectSummary.isPublicProject();
+        String key = "assay:" + assayAccession;
+        if (publicAssay) {
+            EncodedSet cached = cachedSets.getIfPresent(key);
+            // sets of a previous generation can not be combined with the current dictionary
+            if (cached != null && cached.generation == current) {
+                return cached.set;
+            }
+        }
+        int[] set = current.dictionary.encode(proteinIdService.getUniqueProteinAccessionsByAssayAccession(assayAccession));
+        if (publicAssay) {
+            cachedSets.put(key, new EncodedSet(current, set));
+        }
+        return set;
+    }
+
+    private Generation currentGeneration() {
+        Generation current = generation;
+        if (current.dictionary.size() > MAX_DICTIONARY_SIZE) {
+            synchronized (this) {
+                if (generation == current) {
+                    // start over with an empty dictionary (and cache), requests still using
+                    // the old generation can finish with it undisturbed
+                    logger.info("Protein accession dictionary reached " + current.dictionary.size() + " entries, resetting.");
+                    generation = new Generation();
+                    cachedSets.invalidateAll();
+                }
+                current = generation;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * A dictionary, the sets encoded with it are only valid within the same generation.
+     */
+    private static class Generation {
+        private final AccessionDictionary dictionary = new AccessionDictionary();
+    }
+
+    /**
+     * A cached set and the generation it has been encoded with.
+     */
+    private static class EncodedSet {
+        private final Generation generation;
+        private final int[] set;
+
+        private EncodedSet(Generation generation, int[] set) {
+            this.generation = generation;
+            this.set = set;
+        }
+    }
+
+    /**
+     * Thread safe two-way mapping between accessions and dense int IDs.
+     */
+    private static class AccessionDictionary {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final List<String> accessions = new ArrayList<>();
+
+        int[] encode(Collection<String> values) {
+            if (values == null || values.isEmpty()) {
+                return new int[0];
+            }
+            int[] encoded = new int[values.size()];
+            int i = 0;
+            for (String value : values) {
+                encoded[i++] = encode(value);
+            }
+            return SortedIntSets.of(encoded);
+        }
+
+        private int encode(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            synchronized (this) {
+                id = ids.get(value);
+                if (id == null) {
+                    id = accessions.size();
+                    accessions.add(value);
+                    ids.put(value, id);
+                }
+                return id;
+            }
+        }
+
+        synchronized List<String> decode(int[] encoded) {
+            List<String> values = new ArrayList<>(encoded.length);
+            for (int id : encoded) {
+                values.add(accessions.get(id));
+            }
+            return values;
+        }
+
+        int size() {
+            return ids.size();
+        }
+    }
+
+}
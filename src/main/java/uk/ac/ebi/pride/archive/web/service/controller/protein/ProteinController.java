@@ -4,9 +4,14 @@ import com.mangofactory.swagger.annotations.ApiIgnore;
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiParam;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.MappingJsonFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -14,12 +19,18 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import uk.ac.ebi.pride.archive.security.protein.MongoProteinIdentificationSecureSearchService;
 import uk.ac.ebi.pride.archive.security.protein.ProteinIdentificationSecureSearchService;
+import uk.ac.ebi.pride.archive.web.service.error.exception.InvalidDataException;
 import uk.ac.ebi.pride.archive.web.service.error.exception.MaxPageSizeReachedException;
+import uk.ac.ebi.pride.archive.web.service.metrics.RequestProfile;
+import uk.ac.ebi.pride.archive.web.service.model.protein.ProteinDetail;
 import uk.ac.ebi.pride.archive.web.service.model.protein.ProteinDetailList;
 import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
 import uk.ac.ebi.pride.archive.web.service.util.WsUtils;
+import uk.ac.ebi.pride.proteinidentificationindex.mongo.search.model.MongoProteinIdentification;
 import uk.ac.ebi.pride.proteinidentificationindex.search.model.ProteinIdentification;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -34,6 +45,12 @@ import java.util.stream.Collectors;
 @RequestMapping(value = "/protein")
 public class ProteinController {
   private static final Logger logger = LoggerFactory.getLogger(ProteinController.class);
+  private static final int STREAM_BATCH_SIZE = 1000;
+  private static final int MAX_COMPARED_DATASETS = 50;
+  // the search service has no paged variant of the query by project and protein accession, so every match
+  // is loaded at once; larger result sets are refused to keep the memory needed per request bounded
+  private static final int MAX_ACCESSION_MATCHES = 20000;
+  private static final JsonFactory JSON_FACTORY = new MappingJsonFactory();
 
   @Autowired
   ProteinIdentificationSecureSearchService proteinIdService;
@@ -41,6 +58,9 @@ public class ProteinController {
   @Autowired
   MongoProteinIdentificationSecureSearchService mongoProteinIdService;
 
+  @Autowired
+  ProteinAccessionSets proteinAccessionSets;
+
   @ApiOperation(value = "retrieve protein identifications by project accession", position = 1)
   @RequestMapping(value = "/list/project/{projectAccession}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseStatus(HttpStatus.OK) // 200
@@ -52,14 +72,15 @@ public class ProteinController {
       @ApiParam(value = "how many results to return per page. Maximum page size is: " + WsUtils.MAX_PAGE_SIZE)
       @RequestParam(value = "show", required = false, defaultValue = WsUtils.DEFAULT_SHOW+"") int showResults,
       @ApiParam(value = "which page (starting from 0) of the result to return")
-      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page
+      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page,
+      HttpServletResponse response
   ) {
-    logger.info("Proteins for project " + projectAccession + " requested");
+    logger.debug("Proteins for project {} requested", projectAccession);
     if(showResults > WsUtils.MAX_PAGE_SIZE){
       logger.error("Maximum size of page reach");
       throw new MaxPageSizeReachedException("The number of items requested exceed the maximum size for the page: "+ WsUtils.MAX_PAGE_SIZE);
     }
-    return getProteinDetailList(proteinIdService.findByProjectAccession(projectAccession, new PageRequest(page, showResults)).getContent());
+    return getProteinDetailList(proteinIdService.findByProjectAccession(projectAccession, new PageRequest(page, showResults)), response);
   }
 
   @ApiOperation(value = "count protein identifications by project accession", position = 2)
@@ -71,11 +92,12 @@ public class ProteinController {
       @ApiParam(value = "a project accession (example: PXD000001)")
       @PathVariable("projectAccession") String projectAccession
   ) {
-    logger.info("Protein count for project " + projectAccession + " requested");
+    logger.debug("Protein count for project {} requested", projectAccession);
     return proteinIdService.countByProjectAccession(projectAccession);
   }
 
-  @ApiOperation(value = "retrieve protein identifications by project accession and protein accession", position = 3)
+  @ApiOperation(value = "retrieve protein identifications by project accession and protein accession", position = 3,
+      notes = "at most " + MAX_ACCESSION_MATCHES + " matching protein identifications can be paged through, larger results are refused")
   @RequestMapping(value = "/list/project/{projectAccession}/protein/{accession}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseStatus(HttpStatus.OK) // 200
   public
@@ -84,13 +106,61 @@ public class ProteinController {
       @ApiParam(value = "a project accession (example: PXD001536)")
       @PathVariable("projectAccession") String projectAccession,
       @ApiParam(value = "a protein accession (example: P38398)")
-      @PathVariable("accession") String accession
+      @PathVariable("accession") String accession,
+      @ApiParam(value = "how many results to return per page. Maximum page size is: " + WsUtils.MAX_PAGE_SIZE)
+      @RequestParam(value = "show", required = false, defaultValue = WsUtils.DEFAULT_SHOW+"") int showResults,
+      @ApiParam(value = "which page (starting from 0) of the result to return")
+      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page,
+      HttpServletResponse response
   ) {
-    logger.info("Proteins for project " + projectAccession + "and accession " + accession + " requested");
-    return getProteinDetailList(proteinIdService.findByProjectAccessionAndAccession(projectAccession, accession));
+    logger.debug("Proteins for project {} and accession {} requested", projectAccession, accession);
+    if(showResults > WsUtils.MAX_PAGE_SIZE){
+      logger.error("Maximum size of page reach");
+      throw new MaxPageSizeReachedException("The number of items requested exceed the maximum size for the page: "+ WsUtils.MAX_PAGE_SIZE);
+    }
+    // the search service does not offer a paged variant of this query, so we page on the (lightweight) index
+    // records and only fetch and map the requested page of full protein records from Mongo
+    List<ProteinIdentification> foundProteins = findByProjectAccessionAndAccession(projectAccession, accession);
+    WsUtils.setTotalCount(response, foundProteins == null ? 0 : foundProteins.size());
+    return getProteinDetailList(getPage(foundProteins, page, showResults));
+  }
+
+  @ApiOperation(value = "stream all protein identifications by project accession and protein accession", position = 4,
+      notes = "returns the same records as the paged /list operation, but maps and writes them in batches instead of building the whole list first. " +
+          "At most " + MAX_ACCESSION_MATCHES + " matching protein identifications can be streamed, larger results are refused")
+  @RequestMapping(value = "/stream/project/{projectAccession}/protein/{accession}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseStatus(HttpStatus.OK) // 200
+  public void streamProteinsByProjectAndAccession(
+      @ApiParam(value = "a project accession (example: PXD001536)")
+      @PathVariable("projectAccession") String projectAccession,
+      @ApiParam(value = "a protein accession (example: P38398)")
+      @PathVariable("accession") String accession,
+      HttpServletResponse response
+  ) throws IOException {
+    logger.debug("Protein stream for project {} and accession {} requested", projectAccession, accession);
+    List<ProteinIdentification> foundProteins = findByProjectAccessionAndAccession(projectAccession, accession);
+
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    // the index records of all matches (at most MAX_ACCESSION_MATCHES) are already loaded, but the
+    // protein details are only mapped and written as a ProteinDetailList structure one batch at a time
+    JsonGenerator generator = JSON_FACTORY.createJsonGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+    generator.writeStartObject();
+    generator.writeArrayFieldStart("list");
+    if (foundProteins != null) {
+      for (int from = 0; from < foundProteins.size(); from += STREAM_BATCH_SIZE) {
+        int to = Math.min(from + STREAM_BATCH_SIZE, foundProteins.size());
+        for (ProteinDetail proteinDetail : mapProteinIdentifications(foundProteins.subList(from, to))) {
+          generator.writeObject(proteinDetail);
+        }
+        generator.flush();
+      }
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.close();
   }
 
-  @ApiOperation(value = "count protein identifications by project accession and protein accession", position = 4)
+  @ApiOperation(value = "count protein identifications by project accession and protein accession", position = 5)
   @RequestMapping(value = "/count/project/{projectAccession}/protein/{accession}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseStatus(HttpStatus.OK) // 200
   public
@@ -101,11 +171,11 @@ public class ProteinController {
       @ApiParam(value = "a protein accession (example: P38398)")
       @PathVariable("accession") String accession
   ) {
-    logger.info("Protein count for project " + projectAccession + "and accession " + accession + " requested");
+    logger.debug("Protein count for project {} and accession {} requested", projectAccession, accession);
     return proteinIdService.countByProjectAccessionAndAccession(projectAccession, accession);
   }
 
-  @ApiOperation(value = "retrieve protein identifications by assay accession", position = 5)
+  @ApiOperation(value = "retrieve protein identifications by assay accession", position = 6)
   @RequestMapping(value = "/list/assay/{assayAccession}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseStatus(HttpStatus.OK) // 200
   public
@@ -116,17 +186,18 @@ public class ProteinController {
       @ApiParam(value = "how many results to return per page. Maximum page size is: " + WsUtils.MAX_PAGE_SIZE)
       @RequestParam(value = "show", required = false, defaultValue = WsUtils.DEFAULT_SHOW+"") int showResults,
       @ApiParam(value = "which page (starting from 0) of the result to return")
-      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page
+      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page,
+      HttpServletResponse response
   ) {
-    logger.info("Proteins for assay " + assayAccession + " requested");
+    logger.debug("Proteins for assay {} requested", assayAccession);
     if(showResults > WsUtils.MAX_PAGE_SIZE){
       logger.error("Maximum size of page reach");
       throw new MaxPageSizeReachedException("The number of items requested exceed the maximum size for the page: "+ WsUtils.MAX_PAGE_SIZE);
     }
-    return getProteinDetailList(proteinIdService.findByAssayAccession(assayAccession, new PageRequest(page, showResults)).getContent());
+    return getProteinDetailList(proteinIdService.findByAssayAccession(assayAccession, new PageRequest(page, showResults)), response);
   }
 
-  @ApiOperation(value = "count protein identifications by assay accession", position = 6)
+  @ApiOperation(value = "count protein identifications by assay accession", position = 7)
   @RequestMapping(value = "/count/assay/{assayAccession}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseStatus(HttpStatus.OK) // 200
   public
@@ -135,22 +206,114 @@ public class ProteinController {
       @ApiParam(value = "an assay accession (example: 22134)")
       @PathVariable("assayAccession") String assayAccession
   ) {
-    logger.info("Proteins for assay " + assayAccession + " requested");
+    logger.debug("Proteins for assay {} requested", assayAccession);
     return proteinIdService.countByAssayAccession(assayAccession);
   }
 
+  @ApiOperation(value = "compare the protein identifications of projects and assays", position = 8,
+      notes = "computes the intersection, union or difference of the unique protein accessions of the given projects and assays; " +
+          "the difference removes the accessions of all other datasets from the first one (projects are listed before assays)")
+  @RequestMapping(value = "/compare", method = RequestMethod.GET, produces = MediaType.TEXT_PLAIN_VALUE)
+  @ResponseStatus(HttpStatus.OK) // 200
+  public
+  @ResponseBody
+  String compareProteinAccessions(
+      @ApiParam(value = "project accessions to compare (example: PXD000001)")
+      @RequestParam(value = "project", required = false, defaultValue = "") String[] projectAccessions,
+      @ApiParam(value = "assay accessions to compare (example: 22134)")
+      @RequestParam(value = "assay", required = false, defaultValue = "") String[] assayAccessions,
+      @ApiParam(value = "the set operation to apply (intersection, union or difference)")
+      @RequestParam(value = "operation", required = false, defaultValue = "intersection") String operation,
+      @ApiParam(value = "filter accessions (to remove decoy, reverse, etc accessions)")
+      @RequestParam(value = "filter", required = false, defaultValue = "true") boolean filter
+  ) throws InvalidDataException {
+    List<String> projects = nonEmptyValues(projectAccessions);
+    List<String> assays = nonEmptyValues(assayAccessions);
+    logger.debug("Protein {} for projects {} and assays {} requested", operation, projects, assays);
+
+    ProteinAccessionSets.SetOperation setOperation = ProteinAccessionSets.SetOperation.fromName(operation);
+    if (setOperation == null) {
+      throw new InvalidDataException("Unknown operation: " + operation + ". Use one of: intersection, union or difference.");
+    }
+    if (projects.isEmpty() && assays.isEmpty()) {
+      throw new InvalidDataException("At least one project or assay accession is required.");
+    }
+    if (projects.size() + assays.size() > MAX_COMPARED_DATASETS) {
+      throw new InvalidDataException("At most " + MAX_COMPARED_DATASETS + " projects and assays can be compared at once.");
+    }
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("#PRIDE ").append(setOperation.name().toLowerCase()).append(" of");
+    for (String project : projects) {
+      sb.append(" project:").append(project);
+    }
+    for (String assay : assays) {
+      sb.append(" assay:").append(assay);
+    }
+    sb.append("\n");
+    for (String accession : proteinAccessionSets.compute(setOperation, projects, assays)) {
+      if (filter && !isValidAccession(accession)) {
+        // if filtering is enabled, we apply accession filtering to remove decoy, etc accessions
+        continue;
+      }
+      sb.append(accession).append("\n");
+    }
+    return sb.toString();
+  }
+
+  private static List<String> nonEmptyValues(String[] values) {
+    List<String> result = new ArrayList<>(values.length);
+    for (String value : values) {
+      if (value != null && !value.trim().isEmpty()) {
+        result.add(value.trim());
+      }
+    }
+    return result;
+  }
+
   private static boolean isValidAccession(String accession) {
     // ToDo: extend with more cases!
     return !accession.toUpperCase().contains("DECOY") && !accession.toUpperCase().contains("REVERSE");
   }
 
+  private ProteinDetailList getProteinDetailList(Page<ProteinIdentification> proteinPage, HttpServletResponse response) {
+    // Solr already counted all matches, so pass the total on and spare the client the /count request
+    WsUtils.setTotalCount(response, proteinPage.getTotalElements());
+    return getProteinDetailList(proteinPage.getContent());
+  }
+
   private ProteinDetailList getProteinDetailList(List<ProteinIdentification> foundProteins) {
-    return new ProteinDetailList(
-        ObjectMapper.mapMongoProteinIdentifiedListToWSProteinDetailList(
-            mongoProteinIdService.findByIdIn(
-                foundProteins.stream().
-                    map(ProteinIdentification::getId).
-                    collect(Collectors.toCollection(ArrayList<String>::new)))));
+    return new ProteinDetailList(mapProteinIdentifications(foundProteins));
+  }
+
+  private List<ProteinDetail> mapProteinIdentifications(List<ProteinIdentification> foundProteins) {
+    Iterable<MongoProteinIdentification> mongoProteins = mongoProteinIdService.findByIdIn(
+        foundProteins.stream().
+            map(ProteinIdentification::getId).
+            collect(Collectors.toCollection(ArrayList<String>::new)));
+    return RequestProfile.timeStage(RequestProfile.MAPPING,
+        () -> ObjectMapper.mapMongoProteinIdentifiedListToWSProteinDetailList(mongoProteins));
+  }
+
+  private List<ProteinIdentification> findByProjectAccessionAndAccession(String projectAccession, String accession) {
+    // a count is a cheap query, so check the size of the result before loading it
+    long matches = proteinIdService.countByProjectAccessionAndAccession(projectAccession, accession);
+    if (matches > MAX_ACCESSION_MATCHES) {
+      logger.error("Too many protein identifications for project {} and accession {}: {}", projectAccession, accession, matches);
+      throw new MaxPageSizeReachedException("The number of protein identifications matched exceeds the maximum that can be retrieved: " + MAX_ACCESSION_MATCHES);
+    }
+    return proteinIdService.findByProjectAccessionAndAccession(projectAccession, accession);
+  }
+
+  private static <T> List<T> getPage(List<T> records, int page, int showResults) {
+    if (records == null || showResults < 1 || page < 0) {
+      return new ArrayList<>(0);
+    }
+    long from = (long) page * showResults;
+    if (from >= records.size()) {
+      return new ArrayList<>(0);
+    }
+    return records.subList((int) from, (int) Math.min(from + showResults, records.size()));
   }
 
   @ApiIgnore
@@ -164,7 +327,7 @@ public class ProteinController {
       @ApiParam(value = "filter accessions (to remove decoy, reverse, etc accessions)")
       @RequestParam(value = "filter", required = false, defaultValue = "true") boolean filter
   ) {
-    logger.info("Protein accessions for assay " + assayAccession + " requested");
+    logger.debug("Protein accessions for assay {} requested", assayAccession);
     StringBuilder sb = new StringBuilder();
     sb.append("#PRIDE assay:").append(assayAccession).append("\n");
     Set<String> accessions = proteinIdService.getUniqueProteinAccessionsByAssayAccession(assayAccession);
@@ -188,7 +351,7 @@ public class ProteinController {
       @ApiParam(value = "filter accessions (to remove decoy, reverse, etc accessions)")
       @RequestParam(value = "filter", required = false, defaultValue = "true") boolean filter
   ) {
-    logger.info("Protein accessions for project " + projectAccession + " requested");
+    logger.debug("Protein accessions for project {} requested", projectAccession);
     StringBuilder sb = new StringBuilder();
     sb.append("#PRIDE project:").append(projectAccession).append("\n");
     Set<String> accessions = proteinIdService.getUniqueProteinAccessionsByProjectAccession(projectAccession);
@@ -6,6 +6,7 @@ import com.wordnik.swagger.annotations.ApiParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
@@ -15,11 +16,14 @@ import org.springframework.web.bind.annotation.*;
 import uk.ac.ebi.pride.archive.security.psm.MongoPsmSecureSearchService;
 import uk.ac.ebi.pride.archive.security.psm.PsmSecureSearchService;
 import uk.ac.ebi.pride.archive.web.service.error.exception.MaxPageSizeReachedException;
+import uk.ac.ebi.pride.archive.web.service.metrics.RequestProfile;
 import uk.ac.ebi.pride.archive.web.service.model.peptide.PsmDetailList;
 import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
 import uk.ac.ebi.pride.archive.web.service.util.WsUtils;
+import uk.ac.ebi.pride.psmindex.mongo.search.model.MongoPsm;
 import uk.ac.ebi.pride.psmindex.search.model.Psm;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -55,16 +59,16 @@ public class PsmController {
       @ApiParam(value = "how many results to return per page. Maximum page size is: " + WsUtils.MAX_PAGE_SIZE)
       @RequestParam(value = "show", required = false, defaultValue = WsUtils.DEFAULT_SHOW+"") int showResults,
       @ApiParam(value = "which page (starting from 0) of the result to return")
-      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page
+      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page,
+      HttpServletResponse response
   ) {
-    logger.info("Peptides for project " + projectAccession + " requested");
+    logger.debug("Peptides for project {} requested", projectAccession);
     if(showResults > WsUtils.MAX_PAGE_SIZE){
       logger.error("Maximum size of page reached");
       throw new MaxPageSizeReachedException("The number of items requested exceed the maximum size for the page: "+ WsUtils.MAX_PAGE_SIZE);
     }
     return getPsmDetailList(psmSecureSearchService.findByProjectAccession(
-        projectAccession, new PageRequest(page, showResults, Sort.Direction.ASC, SOLR_PEPTIDE_SEQUENCE_FIELD)).
-        getContent());
+        projectAccession, new PageRequest(page, showResults, Sort.Direction.ASC, SOLR_PEPTIDE_SEQUENCE_FIELD)), response);
   }
 
   @ApiOperation(value = "count peptide identifications by project accession", position = 2)
@@ -76,9 +80,9 @@ public class PsmController {
       @ApiParam(value = "a project accession (example: PXD000001)")
       @PathVariable("projectAccession") String projectAccession
   ) {
-    logger.info("PSM count for assay " + projectAccession + " requested");
+    logger.debug("PSM count for assay {} requested", projectAccession);
     Long foundPsms = psmSecureSearchService.countByProjectAccession(projectAccession);
-    logger.debug( foundPsms + " PSMs for assay " + projectAccession);
+    logger.debug("{} PSMs for assay {}", foundPsms, projectAccession);
     return foundPsms;
   }
 
@@ -95,12 +99,12 @@ public class PsmController {
       @ApiParam(value = "how many results to return per page. Maximum page size is: " + WsUtils.MAX_PAGE_SIZE)
       @RequestParam(value = "show", required = false, defaultValue = WsUtils.DEFAULT_SHOW+"") int showResults,
       @ApiParam(value = "which page (starting from 0) of the result to return")
-      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page
+      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page,
+      HttpServletResponse response
   ) {
-    logger.info("Request for peptides for project " + projectAccession + " with sequence: " + sequence);
+    logger.debug("Request for peptides for project {} with sequence: {}", projectAccession, sequence);
     return getPsmDetailList(psmSecureSearchService.findByPeptideSequenceAndProjectAccession(
-        sequence, projectAccession, new PageRequest(page, showResults, Sort.Direction.ASC, SOLR_PEPTIDE_SEQUENCE_FIELD)).
-        getContent());
+        sequence, projectAccession, new PageRequest(page, showResults, Sort.Direction.ASC, SOLR_PEPTIDE_SEQUENCE_FIELD)), response);
   }
 
   @ApiOperation(value = "count peptide identifications by project accession and peptide sequence", position = 4)
@@ -114,9 +118,9 @@ public class PsmController {
       @ApiParam(value = "the peptide sequence to limit the query on (example: GIANSILIK)")
       @PathVariable("sequence") String sequence
   ) {
-    logger.info("PSM count for assay " + projectAccession + " requested");
+    logger.debug("PSM count for assay {} requested", projectAccession);
     Long foundPsms = psmSecureSearchService.countByPeptideSequenceAndProjectAccession(sequence, projectAccession);
-    logger.debug( foundPsms + " PSMs for assay " + projectAccession);
+    logger.debug("{} PSMs for assay {}", foundPsms, projectAccession);
     return foundPsms;
   }
 
@@ -131,16 +135,16 @@ public class PsmController {
       @ApiParam(value = "how many results to return per page. Maximum page size is: " + WsUtils.MAX_PAGE_SIZE)
       @RequestParam(value = "show", required = false, defaultValue = WsUtils.DEFAULT_SHOW+"") int showResults,
       @ApiParam(value = "which page (starting from 0) of the result to return")
-      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page
+      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page,
+      HttpServletResponse response
   ) {
-    logger.info("PSMs for assay " + assayAccession + " requested");
+    logger.debug("PSMs for assay {} requested", assayAccession);
     if(showResults > WsUtils.MAX_PAGE_SIZE){
       logger.error("Maximum size of page reach");
       throw new MaxPageSizeReachedException("The number of items requested exceed the maximum size for the page: "+ WsUtils.MAX_PAGE_SIZE);
     }
-    return getPsmDetailList( psmSecureSearchService.findByAssayAccession(
-        assayAccession, new PageRequest(page, showResults, Sort.Direction.ASC, SOLR_PEPTIDE_SEQUENCE_FIELD)).
-        getContent());
+    return getPsmDetailList(psmSecureSearchService.findByAssayAccession(
+        assayAccession, new PageRequest(page, showResults, Sort.Direction.ASC, SOLR_PEPTIDE_SEQUENCE_FIELD)), response);
   }
 
   @ApiOperation(value = "count peptide identifications by assay accession", position = 6)
@@ -152,9 +156,9 @@ public class PsmController {
       @ApiParam(value = "an assay accession (example: 22134)")
       @PathVariable("assayAccession") String assayAccession
   ) {
-    logger.info("PSM count for assay " + assayAccession + " requested");
+    logger.debug("PSM count for assay {} requested", assayAccession);
     Long foundPsms = psmSecureSearchService.countByAssayAccession(assayAccession);
-    logger.debug( foundPsms + " PSMs for assay " + assayAccession);
+    logger.debug("{} PSMs for assay {}", foundPsms, assayAccession);
     return foundPsms;
   }
 
@@ -172,12 +176,12 @@ public class PsmController {
       @ApiParam(value = "how many results to return per page. Maximum page size is: " + WsUtils.MAX_PAGE_SIZE)
       @RequestParam(value = "show", required = false, defaultValue = WsUtils.DEFAULT_SHOW+"") int showResults,
       @ApiParam(value = "which page (starting from 0) of the result to return")
-      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page
+      @RequestParam(value = "page", required = false, defaultValue = WsUtils.DEFAULT_PAGE+"") int page,
+      HttpServletResponse response
   ) {
-    logger.info("Request for peptides for assay " + assayAccession + " with sequence: " + sequence);
+    logger.debug("Request for peptides for assay {} with sequence: {}", assayAccession, sequence);
     return getPsmDetailList(psmSecureSearchService.findByPeptideSequenceAndAssayAccession(
-        sequence, assayAccession, new PageRequest(page, showResults, Sort.Direction.ASC, SOLR_PEPTIDE_SEQUENCE_FIELD)).
-        getContent());
+        sequence, assayAccession, new PageRequest(page, showResults, Sort.Direction.ASC, SOLR_PEPTIDE_SEQUENCE_FIELD)), response);
   }
 
   @ApiOperation(value = "count peptide identifications by assay accession and peptide sequence", position = 8)
@@ -191,19 +195,25 @@ public class PsmController {
       @ApiParam(value = "the peptide sequence to limit the query on (example: GIANSILIK)")
       @PathVariable("sequence") String sequence
   ) {
-    logger.info("PSM count for assay " + assayAccession + " requested");
+    logger.debug("PSM count for assay {} requested", assayAccession);
     Long foundPsms = psmSecureSearchService.countByPeptideSequenceAndAssayAccession(sequence, assayAccession);
-    logger.debug( foundPsms + " PSMs for assay " + assayAccession);
+    logger.debug("{} PSMs for assay {}", foundPsms, assayAccession);
     return foundPsms;
   }
 
+  private PsmDetailList getPsmDetailList(Page<Psm> psmPage, HttpServletResponse response) {
+    // Solr already counted all matches, so pass the total on and spare the client the /count request
+    WsUtils.setTotalCount(response, psmPage.getTotalElements());
+    return getPsmDetailList(psmPage.getContent());
+  }
+
   private PsmDetailList getPsmDetailList(List<Psm> foundPsms) {
-    return new PsmDetailList(
-        ObjectMapper.mapMongoPsmListToWSPsmDetailList(
-            mongoPsmSecureSearchService.findByIdIn(
-                foundPsms.stream().
-                    map(Psm::getId).
-                    collect(Collectors.toCollection(ArrayList<String>::new)),
-                SEQ_MONGO_SORT)));
+    List<MongoPsm> mongoPsms = mongoPsmSecureSearchService.findByIdIn(
+        foundPsms.stream().
+            map(Psm::getId).
+            collect(Collectors.toCollection(ArrayList<String>::new)),
+        SEQ_MONGO_SORT);
+    return new PsmDetailList(RequestProfile.timeStage(RequestProfile.MAPPING,
+        () -> ObjectMapper.mapMongoPsmListToWSPsmDetailList(mongoPsms)));
   }
 }
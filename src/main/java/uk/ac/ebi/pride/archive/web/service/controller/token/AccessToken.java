@@ -0,0 +1,33 @@
+package uk.ac.ebi.pride.archive.web.service.controller.token;
+
+/**
+ * A bearer token issued in exchange for user credentials.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class AccessToken {
+
+    private final String accessToken;
+    private final long expiresIn;
+
+    public AccessToken(String accessToken, long expiresIn) {
+        this.accessToken = accessToken;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getTokenType() {
+        return "Bearer";
+    }
+
+    /**
+     * @return the number of seconds the token is valid for.
+     */
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
@@ -0,0 +1,58 @@
+package uk.ac.ebi.pride.archive.web.service.controller.token;
+
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import uk.ac.ebi.pride.archive.web.service.security.AccessTokenService;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.Principal;
+
+/**
+ * Exchanges user credentials for a short lived access token, which can be used instead of
+ * the credentials for subsequent requests (as "Authorization: Bearer" header).
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Api(value = "token", description = "exchange user credentials for an access token", position = 5)
+@Controller
+@RequestMapping(value = "/token")
+public class TokenController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenController.class);
+
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @ApiOperation(value = "request an access token", position = 1, notes = "requires HTTP Basic authentication, the returned token is valid for a short time only")
+    @RequestMapping(method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK) // 200
+    public
+    @ResponseBody
+    AccessToken createToken(Principal principal, HttpServletRequest request) {
+        if (!(principal instanceof Authentication)) {
+            throw new AccessDeniedException("Authentication required to request an access token!");
+        }
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            // tokens can not be revoked, so they must not be used to extend their own life time
+            throw new AccessDeniedException("Credentials required to request an access token!");
+        }
+        logger.info("Access token requested by " + principal.getName());
+
+        return new AccessToken(accessTokenService.createToken((Authentication) principal), accessTokenService.getTimeToLiveSeconds());
+    }
+
+}
@@ -4,19 +4,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
-import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.JedisCluster;
-import redis.clients.jedis.JedisPoolConfig;
+import uk.ac.ebi.pride.archive.web.service.metrics.BackendCallTimer;
+import uk.ac.ebi.pride.archive.web.service.metrics.MetricsRegistry;
+import uk.ac.ebi.pride.archive.web.service.metrics.RequestProfile;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.Set;
 
 import static uk.ac.ebi.pride.archive.web.service.interceptor.RateLimitServiceImpl.COUNT_EXPIRY_PERIOD_SECONDS;
 
@@ -34,16 +33,22 @@ public class RateLimitInterceptor extends HandlerInterceptorAdapter {
 
   public static final int PERIOD_MULTIPLIER = 2;
   public static final int MAX_REQUESTS_PER_PERIOD = COUNT_EXPIRY_PERIOD_SECONDS * PERIOD_MULTIPLIER;
-  @Value("#{redisConfig['redis.host']}")
-  private String redisServer;
-  @Value("#{redisConfig['redis.port']}")
-  private String redisPort;
-  private JedisCluster jedisCluster;
-
+  @Autowired
+  private RedisClusterProvider redisClusterProvider;
 
   @Autowired
   private RateLimitService rateLimitService;
 
+  @Autowired
+  private MetricsRegistry metricsRegistry;
+
+  private BackendCallTimer redisTimer;
+
+  @PostConstruct
+  public void init() {
+    redisTimer = new BackendCallTimer("redis", metricsRegistry);
+  }
+
   /**
    * This method is called before handling every single request.
    * @param request the request sent to the Web Service.
@@ -53,8 +58,21 @@ public class RateLimitInterceptor extends HandlerInterceptorAdapter {
    */
   public boolean preHandle(HttpServletRequest request,
                            HttpServletResponse response, Object handler) {
+    long start = RequestProfile.startStage();
+    try {
+      return checkRateLimit(request, response);
+    } finally {
+      RequestProfile.stopStage(RequestProfile.RATE_LIMIT, start);
+    }
+  }
+
+  /**
+   * Increments the GET request count of the client and rejects the request if the client exceeded the limit.
+   * @return true to process the request onwards as normal, false if the request has been rejected.
+   */
+  private boolean checkRateLimit(HttpServletRequest request, HttpServletResponse response) {
     boolean result = true;
-    setupRedisConnection();
+    JedisCluster jedisCluster = redisClusterProvider.getJedisCluster();
     if ("GET".equalsIgnoreCase(request.getMethod())) {
       if (logger.isDebugEnabled()) {
         debugRequestHeaders(request);
@@ -75,7 +93,15 @@ public class RateLimitInterceptor extends HandlerInterceptorAdapter {
       if (!LOCALHOST.equals(address) && !ALT_LOCALHOST.equals(address)) {
         try {
           logger.debug("About to increment count for user: " + address);
-          int incrementUserGetCount = rateLimitService.incrementLimit("GET~" + address, jedisCluster);
+          int incrementUserGetCount;
+          long start = redisTimer.start();
+          boolean failed = true;
+          try {
+            incrementUserGetCount = rateLimitService.incrementLimit("GET~" + address, jedisCluster);
+            failed = false;
+          } finally {
+            redisTimer.stop("RateLimitService.incrementLimit", start, failed);
+          }
           logger.debug("Current count for user: " + address + " is: " + incrementUserGetCount);
           if (incrementUserGetCount >= MAX_REQUESTS_PER_PERIOD) { // temp ban user
             response.sendError(429, "Rate limit exceeded: " + MAX_REQUESTS_PER_PERIOD + " requests per " +
@@ -93,37 +119,6 @@ public class RateLimitInterceptor extends HandlerInterceptorAdapter {
     return result;
   }
 
-  /**
-   * Sets up the connection to Redis cluster.
-   */
-  private void setupRedisConnection() {
-    if (jedisCluster == null) {
-      final String STRING_SEPARATOR = "##";
-      Set<HostAndPort> jedisClusterNodes = new HashSet<>();
-      if (redisServer.contains(STRING_SEPARATOR)) {
-        String[] servers = redisServer.split(STRING_SEPARATOR);
-        String[] ports;
-        if (redisPort.contains(STRING_SEPARATOR)) {
-          ports = redisPort.split(STRING_SEPARATOR);
-        } else {
-          ports = new String[]{redisPort};
-        }
-        if (ports.length!=1 && ports.length!=servers.length) {
-          logger.error("Mismatch between provided Redis ports and servers. Should either have 1 port for all servers, or 1 port per server");
-        }
-        for (int i=0; i<servers.length; i++) {
-          String serverPort = ports.length == 1 ? ports[0] : ports[i];
-          jedisClusterNodes.add(new HostAndPort(servers[i], Integer.parseInt(serverPort)));
-          logger.info("Added Jedis node: " + servers[i] + " " + serverPort);
-        }
-      } else {
-        jedisClusterNodes.add(new HostAndPort(redisServer, Integer.parseInt(redisPort))); //Jedis Cluster will attempt to discover cluster nodes automatically
-        logger.info("Added Jedis node: " + redisServer + " " + redisPort);
-      }
-      jedisCluster =  new JedisCluster(jedisClusterNodes, new JedisPoolConfig());
-    }
-  }
-
   /**
    * This method outputs the HTTP request headers to the debug logger.
    * @param request the HTTP request.
@@ -0,0 +1,83 @@
+package uk.ac.ebi.pride.archive.web.service.interceptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPoolConfig;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Provides the connection to the Redis cluster, shared by the rate limiter and the health checks.
+ * The connection is set up on first use.
+ *
+ * @author Tobias Ternent
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class RedisClusterProvider {
+  private static final Logger logger = LoggerFactory.getLogger(RedisClusterProvider.class);
+
+  private static final String STRING_SEPARATOR = "##";
+
+  @Value("#{redisConfig['redis.host']}")
+  private String redisServer;
+  @Value("#{redisConfig['redis.port']}")
+  private String redisPort;
+  private volatile JedisCluster jedisCluster;
+
+  /**
+   * @return the connection to the Redis cluster, which is set up if this is the first call.
+   */
+  public JedisCluster getJedisCluster() {
+    JedisCluster cluster = jedisCluster;
+    if (cluster == null) {
+      synchronized (this) {
+        if (jedisCluster == null) {
+          jedisCluster = new JedisCluster(getClusterNodes(), new JedisPoolConfig());
+        }
+        cluster = jedisCluster;
+      }
+    }
+    return cluster;
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    if (jedisCluster != null) {
+      jedisCluster.close();
+    }
+  }
+
+  private Set<HostAndPort> getClusterNodes() {
+    Set<HostAndPort> jedisClusterNodes = new HashSet<>();
+    if (redisServer.contains(STRING_SEPARATOR)) {
+      String[] servers = redisServer.split(STRING_SEPARATOR);
+      String[] ports;
+      if (redisPort.contains(STRING_SEPARATOR)) {
+        ports = redisPort.split(STRING_SEPARATOR);
+      } else {
+        ports = new String[]{redisPort};
+      }
+      if (ports.length!=1 && ports.length!=servers.length) {
+        logger.error("Mismatch between provided Redis ports and servers. Should either have 1 port for all servers, or 1 port per server");
+      }
+      for (int i=0; i<servers.length; i++) {
+        String serverPort = ports.length == 1 ? ports[0] : ports[i];
+        jedisClusterNodes.add(new HostAndPort(servers[i], Integer.parseInt(serverPort)));
+        logger.info("Added Jedis node: " + servers[i] + " " + serverPort);
+      }
+    } else {
+      jedisClusterNodes.add(new HostAndPort(redisServer, Integer.parseInt(redisPort))); //Jedis Cluster will attempt to discover cluster nodes automatically
+      logger.info("Added Jedis node: " + redisServer + " " + redisPort);
+    }
+    return jedisClusterNodes;
+  }
+}
@@ -0,0 +1,69 @@
+package uk.ac.ebi.pride.archive.web.service.interceptor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import uk.ac.ebi.pride.archive.web.service.metrics.MetricsRegistry;
+import uk.ac.ebi.pride.archive.web.service.metrics.RequestProfile;
+import uk.ac.ebi.pride.archive.web.service.util.filter.RequestMetricsFilter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records the latency and the response status of every request in the metrics of its handler
+ * method (e.g. "ProjectController.getProjectSummary"). Requests not handled by a controller method
+ * (e.g. static resources) are recorded as "other".
+ *
+ * Also completes the profile of the request (see {@link RequestProfile}) with the handler and the time
+ * spent before the request reached the dispatcher, in the security filter chain.
+ *
+ * Note: this has to be the first interceptor, so requests rejected by other interceptors
+ * (e.g. the rate limiter) are recorded as well.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class RequestMetricsInterceptor extends HandlerInterceptorAdapter {
+
+  private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".START";
+  private static final String OTHER_ENDPOINT = "other";
+
+  @Autowired
+  private MetricsRegistry metricsRegistry;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    long start = System.nanoTime();
+    request.setAttribute(START_ATTRIBUTE, start);
+    RequestProfile profile = RequestProfile.current();
+    if (profile != null && profile.getHandler() == null) {
+      profile.setHandler(getEndpointName(handler));
+      profile.addStage(RequestProfile.SECURITY, (start - profile.getStartNanos()) / 1000);
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    Object start = request.getAttribute(START_ATTRIBUTE);
+    if (!(start instanceof Long)) {
+      return;
+    }
+    long micros = (System.nanoTime() - (Long) start) / 1000;
+    int status = RequestMetricsFilter.getStatus(request);
+    if (ex != null && status < 400) {
+      // the exception has not been handled, the container will respond with an error
+      status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    }
+    metricsRegistry.recordRequest(getEndpointName(handler), status, micros);
+  }
+
+  static String getEndpointName(Object handler) {
+    if (handler instanceof HandlerMethod) {
+      HandlerMethod handlerMethod = (HandlerMethod) handler;
+      return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+    }
+    return OTHER_ENDPOINT;
+  }
+}
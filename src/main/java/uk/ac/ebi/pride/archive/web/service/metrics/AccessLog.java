@@ -0,0 +1,243 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Structured access log of the web service: one line per request with the handler, parameters,
+ * status, size of the result and latency, e.g.
+ * <pre>
+ *     time=2018-06-05T10:15:30.123Z method=GET uri="/project/PXD000001" handler=ProjectController.getProjectSummary status=200 bytes=5120 millis=12.3 client=10.0.0.1 params=""
+ * </pre>
+ *
+ * The request threads only put the (unformatted) entries into a bounded, lock-free ring buffer, a
+ * background thread formats them and writes them to the "uk.ac.ebi.pride.archive.web.service.access"
+ * logger (see the logging configuration), so the request threads do not pay for the disk I/O.
+ * If the writer can not keep up and the buffer is full, entries are dropped (and the number of
+ * dropped entries is logged) rather than blocking the requests.
+ *
+ * Note: this is defined in the root application context, as the requests are logged by the
+ * request metrics filter.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class AccessLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+    private static final Logger accessLogger = LoggerFactory.getLogger("uk.ac.ebi.pride.archive.web.service.access");
+
+    private static final long IDLE_WAIT_MILLIS = 50;
+
+    // bounded multi-producer, single-consumer queue: each slot has a sequence number, which tells
+    // whether the slot is free to be written for the given position or ready to be read
+    private final int mask;
+    private final AtomicReferenceArray<Entry> entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // only used by the writer thread
+    private long head;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity the number of entries that can be buffered, rounded up to a power of two.
+     */
+    public AccessLog(int capacity) {
+        this(capacity, true);
+    }
+
+    AccessLog(int capacity, boolean startWriter) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeEntries();
+            }
+        }, "access-log-writer");
+        writer.setDaemon(true);
+        if (startWriter) {
+            writer.start();
+        }
+    }
+
+    /**
+     * Logs a request, without blocking.
+     *
+     * @param parameters the parameters of the request, as in {@link javax.servlet.ServletRequest#getParameterMap()}.
+     * @param handler the handler method, null if the request did not reach a handler.
+     * @param resultBytes the size of the result, -1 if not known.
+     * @return false if the entry has been dropped, as the buffer is full.
+     */
+    public boolean log(String method, String uri, Map<String, String[]> parameters, String handler, int status,
+                       long resultBytes, long micros, String client) {
+        Entry entry = new Entry(System.currentTimeMillis(), method, uri,
+                parameters.isEmpty() ? Collections.<String, String[]>emptyMap() : new LinkedHashMap<>(parameters),
+                handler, status, resultBytes, micros, client);
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries.set(index, entry);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                // the writer has not yet read the entry written for this slot one round before
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            // otherwise another request thread took the slot, try the next one
+        }
+    }
+
+    /**
+     * @return the number of entries dropped since start, as the buffer was full.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops the writer, after it has written the entries still in the buffer.
+     */
+    public void close() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * @return the oldest entry of the buffer, null if it is empty. Must only be called by the writer.
+     */
+    Entry poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        Entry entry = entries.get(index);
+        entries.set(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return entry;
+    }
+
+    private void writeEntries() {
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
+        timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder line = new StringBuilder(256);
+        long reportedDropped = 0;
+        while (true) {
+            Entry entry;
+            while ((entry = poll()) != null) {
+                line.setLength(0);
+                entry.appendTo(line, timeFormat);
+                accessLogger.info(line.toString());
+            }
+            long dropped = droppedCount.get();
+            if (dropped > reportedDropped) {
+                logger.warn((dropped - reportedDropped) + " access log entries have been dropped, as the buffer was full");
+                reportedDropped = dropped;
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(IDLE_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                // closed, write the remaining entries
+            }
+        }
+    }
+
+    static class Entry {
+        private final long time;
+        private final String method;
+        private final String uri;
+        private final Map<String, String[]> parameters;
+        private final String handler;
+        private final int status;
+        private final long resultBytes;
+        private final long micros;
+        private final String client;
+
+        private Entry(long time, String method, String uri, Map<String, String[]> parameters, String handler,
+                      int status, long resultBytes, long micros, String client) {
+            this.time = time;
+            this.method = method;
+            this.uri = uri;
+            this.parameters = parameters;
+            this.handler = handler;
+            this.status = status;
+            this.resultBytes = resultBytes;
+            this.micros = micros;
+            this.client = client;
+        }
+
+        void appendTo(StringBuilder line, SimpleDateFormat timeFormat) {
+            line.append("time=").append(timeFormat.format(new Date(time)))
+                    .append(" method=").append(method)
+                    .append(" uri=");
+            appendQuoted(line, uri);
+            line.append(" handler=").append(handler == null ? "-" : handler)
+                    .append(" status=").append(status)
+                    .append(" bytes=");
+            if (resultBytes < 0) {
+                line.append('-');
+            } else {
+                line.append(resultBytes);
+            }
+            line.append(" millis=").append(micros / 1000).append('.').append((micros % 1000) / 100)
+                    .append(" client=").append(client)
+                    .append(" params=");
+            StringBuilder query = new StringBuilder();
+            for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+                for (String value : parameter.getValue()) {
+                    if (query.length() > 0) {
+                        query.append('&');
+                    }
+                    query.append(parameter.getKey()).append('=').append(value);
+                }
+            }
+            appendQuoted(line, query);
+        }
+
+        private static void appendQuoted(StringBuilder line, CharSequence value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c < ' ') {
+                    line.append(' ');
+                } else {
+                    line.append(c);
+                }
+            }
+            line.append('"');
+        }
+    }
+
+}
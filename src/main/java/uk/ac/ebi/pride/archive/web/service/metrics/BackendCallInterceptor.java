@@ -0,0 +1,43 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+/**
+ * Times the calls of the service beans of a backend (e.g. the Oracle backed secure services) by
+ * service method, see {@link BackendCallTimer}.
+ *
+ * Note: this is applied to the service beans by the auto proxy creators in the root application context.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class BackendCallInterceptor implements MethodInterceptor {
+
+    private final BackendCallTimer timer;
+
+    public BackendCallInterceptor(String backend, MetricsRegistry metricsRegistry) {
+        this.timer = new BackendCallTimer(backend, metricsRegistry);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = timer.start();
+        boolean failed = true;
+        try {
+            Object result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            timer.stop(getOperationName(invocation), start, failed);
+        }
+    }
+
+    private static String getOperationName(MethodInvocation invocation) {
+        Object target = invocation.getThis();
+        Class<?> type = target == null ? invocation.getMethod().getDeclaringClass() : AopUtils.getTargetClass(target);
+        return type.getSimpleName() + "." + invocation.getMethod().getName();
+    }
+
+}
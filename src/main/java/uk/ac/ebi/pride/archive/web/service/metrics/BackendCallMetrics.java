@@ -0,0 +1,52 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of the calls of one backend operation (service method): call and error counts,
+ * the total latency since start and the latency distribution of recent calls.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class BackendCallMetrics {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final RecentLatencyHistogram recentLatencies = new RecentLatencyHistogram();
+
+    /**
+     * @param micros the latency of the call in microseconds.
+     * @param failed whether the call failed with an exception.
+     */
+    public void record(long micros, boolean failed) {
+        count.increment();
+        if (failed) {
+            errorCount.increment();
+        }
+        totalMicros.add(micros);
+        recentLatencies.record(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public long getTotalMicros() {
+        return totalMicros.sum();
+    }
+
+    /**
+     * @param quantiles the quantiles to compute, e.g. 0.99 for the 99th percentile.
+     * @return the latency in microseconds at each of the quantiles, over the recent calls.
+     */
+    public long[] getRecentLatencyQuantiles(double... quantiles) {
+        return recentLatencies.getQuantiles(quantiles);
+    }
+
+}
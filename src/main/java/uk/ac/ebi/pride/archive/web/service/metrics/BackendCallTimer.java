@@ -0,0 +1,77 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+/**
+ * Times the calls of a backend (e.g. Solr): records them in the backend call metrics by operation,
+ * and adds them to the profile of the current request (see {@link RequestProfile}).
+ *
+ * Calls made from within another timed call (e.g. a service calling another service) are recorded in
+ * the metrics, but are not added to the request profile again, so the time is not counted twice.
+ *
+ * Usage:
+ * <pre>
+ *     long start = timer.start();
+ *     boolean failed = true;
+ *     try {
+ *         ... call the backend ...
+ *         failed = false;
+ *     } finally {
+ *         timer.stop("operation", start, failed);
+ *     }
+ * </pre>
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class BackendCallTimer {
+
+    // nesting depth of timed calls on the current thread, over all backends
+    private static final ThreadLocal<int[]> DEPTH = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private final String backend;
+    private final MetricsRegistry metricsRegistry;
+
+    /**
+     * @param backend the name of the backend, e.g. "solr".
+     * @param metricsRegistry the registry to record the calls in.
+     */
+    public BackendCallTimer(String backend, MetricsRegistry metricsRegistry) {
+        this.backend = backend;
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return the start time of the call, to pass to {@link #stop(String, long, boolean)}.
+     */
+    public long start() {
+        DEPTH.get()[0]++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Must be called once for every {@link #start()}, also if the call failed.
+     *
+     * @param operation the name of the operation, e.g. the service method.
+     * @param start the start time returned by {@link #start()}.
+     * @param failed whether the call failed with an exception.
+     */
+    public void stop(String operation, long start, boolean failed) {
+        long micros = (System.nanoTime() - start) / 1000;
+        int[] depth = DEPTH.get();
+        depth[0]--;
+        metricsRegistry.recordBackendCall(backend, operation, micros, failed);
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null && depth[0] == 0) {
+            profile.addBackendCall(backend, micros);
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The request metrics of one endpoint (handler method): request counts by status code, the total
+ * latency since start and the latency distribution of recent requests.
+ *
+ * The latency distribution only covers the last one to two minutes (see {@link RecentLatencyHistogram}).
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class EndpointMetrics {
+
+    private final ConcurrentMap<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final RecentLatencyHistogram recentLatencies = new RecentLatencyHistogram();
+
+    /**
+     * @param status the HTTP status code of the response, 0 if not known.
+     * @param micros the latency of the request in microseconds.
+     */
+    public void record(int status, long micros) {
+        LongAdder statusCount = statusCounts.get(status);
+        if (statusCount == null) {
+            LongAdder newCount = new LongAdder();
+            statusCount = statusCounts.putIfAbsent(status, newCount);
+            if (statusCount == null) {
+                statusCount = newCount;
+            }
+        }
+        statusCount.increment();
+        count.increment();
+        totalMicros.add(micros);
+        recentLatencies.record(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalMicros() {
+        return totalMicros.sum();
+    }
+
+    /**
+     * @return the number of requests by HTTP status code, since start.
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> statusCount : statusCounts.entrySet()) {
+            counts.put(statusCount.getKey(), statusCount.getValue().sum());
+        }
+        return counts;
+    }
+
+    /**
+     * @param quantiles the quantiles to compute, e.g. 0.99 for the 99th percentile.
+     * @return the latency in microseconds at each of the quantiles, over the recent requests.
+     */
+    public long[] getRecentLatencyQuantiles(double... quantiles) {
+        return recentLatencies.getQuantiles(quantiles);
+    }
+
+}
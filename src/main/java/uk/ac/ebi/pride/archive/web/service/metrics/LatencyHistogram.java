@@ -0,0 +1,121 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in microseconds, with a relative error of at most 1/16 (6.25%).
+ *
+ * Values are counted in log-linear buckets: each power of two range is split into 16 equally sized
+ * sub-buckets (values below 16 have a bucket each), similar to HdrHistogram with one significant
+ * hex digit. Recording is a single atomic increment, so it can be done on every request without
+ * any locking. Values above about 9 hours are counted in the highest bucket.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // the highest power of two range with its own buckets: 2^35 microseconds, about 9.5 hours
+    private static final int MAX_EXPONENT = 35;
+    static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    /**
+     * @param micros the latency to record, negative values are counted as 0.
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalMicros.add(value);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getTotalMicros() {
+        return totalMicros.sum();
+    }
+
+    /**
+     * Resets all counts. Values recorded concurrently may be lost or only partially reset.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalMicros.reset();
+    }
+
+    /**
+     * Adds the bucket counts of this histogram to the provided array (see {@link #getValueAtQuantile(long[], double)}).
+     */
+    public void addCountsTo(long[] bucketCounts) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] += counts.get(i);
+        }
+    }
+
+    /**
+     * @return a new array, large enough to hold the bucket counts of a histogram.
+     */
+    public static long[] newBucketCounts() {
+        return new long[BUCKET_COUNT];
+    }
+
+    /**
+     * @param bucketCounts the bucket counts of one or more histograms.
+     * @param quantile the quantile to compute, e.g. 0.99 for the 99th percentile.
+     * @return the (highest value of the bucket of the) value at the quantile in microseconds, 0 if there are no values.
+     */
+    public static long getValueAtQuantile(long[] bucketCounts, double quantile) {
+        long total = 0;
+        for (long count : bucketCounts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return highestValueOfBucket(i);
+            }
+        }
+        return highestValueOfBucket(bucketCounts.length - 1);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOfBucket(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,113 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the request metrics of the web service endpoints (handler methods) and the call metrics
+ * of the backend services (by backend and service method), so they can be reported in one place.
+ *
+ * Note: this is defined in the root application context, so metrics of both the service
+ * and the web layer can be recorded with it.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<BackendOperation, BackendCallMetrics> backendCalls = new ConcurrentHashMap<>();
+
+    /**
+     * @param endpoint the name of the endpoint, e.g. the handler method.
+     * @param status the HTTP status code of the response, 0 if not known.
+     * @param micros the latency of the request in microseconds.
+     */
+    public void recordRequest(String endpoint, int status, long micros) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            EndpointMetrics newMetrics = new EndpointMetrics();
+            metrics = endpoints.putIfAbsent(endpoint, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        metrics.record(status, micros);
+    }
+
+    /**
+     * @return the metrics of all endpoints that have been requested, by endpoint name.
+     */
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    /**
+     * @param backend the name of the backend, e.g. "solr".
+     * @param operation the name of the operation, e.g. the service method.
+     * @param micros the latency of the call in microseconds.
+     * @param failed whether the call failed with an exception.
+     */
+    public void recordBackendCall(String backend, String operation, long micros, boolean failed) {
+        BackendOperation key = new BackendOperation(backend, operation);
+        BackendCallMetrics metrics = backendCalls.get(key);
+        if (metrics == null) {
+            BackendCallMetrics newMetrics = new BackendCallMetrics();
+            metrics = backendCalls.putIfAbsent(key, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        metrics.record(micros, failed);
+    }
+
+    /**
+     * @return the metrics of all backend operations that have been called, sorted by backend and operation.
+     */
+    public Map<BackendOperation, BackendCallMetrics> getBackendCalls() {
+        return new TreeMap<>(backendCalls);
+    }
+
+    /**
+     * An operation (e.g. service method) of a backend.
+     */
+    public static class BackendOperation implements Comparable<BackendOperation> {
+        private final String backend;
+        private final String operation;
+
+        private BackendOperation(String backend, String operation) {
+            this.backend = backend;
+            this.operation = operation;
+        }
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        @Override
+        public int compareTo(BackendOperation other) {
+            int comparison = backend.compareTo(other.backend);
+            return comparison != 0 ? comparison : operation.compareTo(other.operation);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BackendOperation)) return false;
+            BackendOperation other = (BackendOperation) o;
+            return backend.equals(other.backend) && operation.equals(other.operation);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * backend.hashCode() + operation.hashCode();
+        }
+    }
+
+}
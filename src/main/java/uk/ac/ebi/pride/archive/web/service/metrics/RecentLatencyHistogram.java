@@ -0,0 +1,64 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency distribution of the last one to two minutes: values are recorded in the histogram of the
+ * current minute, quantiles are computed over the current and the previous minute. So percentiles
+ * show the current performance, rather than the performance since start.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class RecentLatencyHistogram {
+
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    // histograms of the even and the odd minutes
+    private final LatencyHistogram[] windows = {new LatencyHistogram(), new LatencyHistogram()};
+    private final AtomicLong currentWindow = new AtomicLong(System.currentTimeMillis() / WINDOW_MILLIS);
+
+    /**
+     * @param micros the latency to record in microseconds.
+     */
+    public void record(long micros) {
+        currentWindow(System.currentTimeMillis()).record(micros);
+    }
+
+    /**
+     * @param quantiles the quantiles to compute, e.g. 0.99 for the 99th percentile.
+     * @return the latency in microseconds at each of the quantiles.
+     */
+    public long[] getQuantiles(double... quantiles) {
+        LatencyHistogram current = currentWindow(System.currentTimeMillis());
+        LatencyHistogram previous = windows[0] == current ? windows[1] : windows[0];
+        long[] bucketCounts = LatencyHistogram.newBucketCounts();
+        current.addCountsTo(bucketCounts);
+        previous.addCountsTo(bucketCounts);
+
+        long[] values = new long[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            values[i] = LatencyHistogram.getValueAtQuantile(bucketCounts, quantiles[i]);
+        }
+        return values;
+    }
+
+    /**
+     * @return the histogram of the current minute, after dropping the counts of windows that are over.
+     */
+    private LatencyHistogram currentWindow(long now) {
+        long window = now / WINDOW_MILLIS;
+        long previous = currentWindow.get();
+        if (window > previous && currentWindow.compareAndSet(previous, window)) {
+            // the histogram of the new minute still holds the counts of two minutes ago
+            windows[(int) (window & 1)].reset();
+            if (window - previous > 1) {
+                // there have been no values in the last minute
+                windows[(int) ((window - 1) & 1)].reset();
+            }
+        }
+        return windows[(int) (window & 1)];
+    }
+
+}
@@ -0,0 +1,252 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Where the time of the request being handled was spent: in the stages of the request handling
+ * (rate limiting, security, mapping to the web service model, JSON serialization) and in the calls
+ * of each backend (e.g. Oracle, Solr). Also keeps the handler and the size of the result, for the
+ * slow request log (see {@link SlowRequestRecorder}).
+ *
+ * The profile is bound to the request thread for the duration of a request (see {@link #start()}).
+ * Note: the stages and the backend calls can overlap, e.g. the rate limiting includes the Redis calls.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class RequestProfile {
+
+    public static final String RATE_LIMIT = "rate-limit";
+    public static final String SECURITY = "security";
+    public static final String MAPPING = "mapping";
+    public static final String SERIALIZATION = "serialization";
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+    // nesting depth of timed stages on the current thread, e.g. of a mapping within a mapping
+    private static final ThreadLocal<int[]> STAGE_DEPTH = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, long[]> stages = new TreeMap<>();
+    private final Map<String, long[]> backends = new TreeMap<>();
+    private volatile String handler;
+    private volatile long resultBytes = -1;
+
+    /**
+     * Binds a new (empty) profile to the current thread.
+     */
+    public static RequestProfile start() {
+        RequestProfile profile = new RequestProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    /**
+     * Unbinds the profile from the current thread.
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the profile bound to the current thread, or null if the thread is not handling a request.
+     */
+    public static RequestProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the task, which runs with the profile of the current request bound, so the backend calls of
+     *         a task run on another thread are added to the profile of the request as well (concurrent calls
+     *         are added up, so the backend time can exceed the duration of the request).
+     */
+    public static <T> Callable<T> propagate(final Callable<T> task) {
+        final RequestProfile profile = CURRENT.get();
+        if (profile == null) {
+            return task;
+        }
+        return () -> {
+            RequestProfile previous = CURRENT.get();
+            CURRENT.set(profile);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the start time of a stage, to pass to {@link #stopStage(String, long)}.
+     */
+    public static long startStage() {
+        STAGE_DEPTH.get()[0]++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time of a stage to the profile of the current request, if it is not nested in another stage.
+     * Must be called once for every {@link #startStage()}.
+     */
+    public static void stopStage(String stage, long start) {
+        long micros = (System.nanoTime() - start) / 1000;
+        int[] depth = STAGE_DEPTH.get();
+        depth[0]--;
+        RequestProfile profile = CURRENT.get();
+        if (profile != null && depth[0] == 0) {
+            profile.addStage(stage, micros);
+        }
+    }
+
+    /**
+     * @return the result of the work, which is timed as the given stage.
+     */
+    public static <T> T timeStage(String stage, Supplier<T> work) {
+        long start = startStage();
+        try {
+            return work.get();
+        } finally {
+            stopStage(stage, start);
+        }
+    }
+
+    /**
+     * @return the time the request started, in {@link System#nanoTime()}.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return the name of the handler method, null if the request has not reached a handler (yet).
+     */
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * @return the size of the serialized result in bytes, -1 if not known.
+     */
+    public long getResultBytes() {
+        return resultBytes;
+    }
+
+    public void setResultBytes(long resultBytes) {
+        this.resultBytes = resultBytes;
+    }
+
+    /**
+     * @param stage the name of the stage, e.g. {@link #MAPPING}.
+     * @param micros the time spent in the stage in microseconds.
+     */
+    public synchronized void addStage(String stage, long micros) {
+        add(stages, stage, micros);
+    }
+
+    /**
+     * @param backend the name of the backend.
+     * @param micros the latency of a call of the backend in microseconds.
+     */
+    public synchronized void addBackendCall(String backend, long micros) {
+        add(backends, backend, micros);
+    }
+
+    private static void add(Map<String, long[]> timings, String name, long micros) {
+        long[] countAndMicros = timings.get(name);
+        if (countAndMicros == null) {
+            countAndMicros = new long[2];
+            timings.put(name, countAndMicros);
+        }
+        countAndMicros[0]++;
+        countAndMicros[1] += micros;
+    }
+
+    /**
+     * @return the time spent in each stage in microseconds, by stage name.
+     */
+    public synchronized Map<String, Long> getStageMicros() {
+        return sumMicros(stages);
+    }
+
+    /**
+     * @return the time spent in calls of each backend in microseconds, by backend name.
+     */
+    public synchronized Map<String, Long> getBackendMicros() {
+        return sumMicros(backends);
+    }
+
+    private static Map<String, Long> sumMicros(Map<String, long[]> timings) {
+        Map<String, Long> micros = new TreeMap<>();
+        for (Map.Entry<String, long[]> timing : timings.entrySet()) {
+            micros.put(timing.getKey(), timing.getValue()[1]);
+        }
+        return micros;
+    }
+
+    public synchronized boolean isEmpty() {
+        return stages.isEmpty() && backends.isEmpty();
+    }
+
+    /**
+     * @return the timings in the format of the Server-Timing header,
+     *         e.g. "security;dur=2.1, oracle;dur=12.5;desc="3 calls", solr;dur=40.1;desc="1 calls"".
+     */
+    public synchronized String toServerTiming() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, long[]> stage : stages.entrySet()) {
+            appendSeparator(builder);
+            builder.append(stage.getKey()).append(";dur=").append(toMillis(stage.getValue()[1]));
+        }
+        for (Map.Entry<String, long[]> backend : backends.entrySet()) {
+            appendSeparator(builder);
+            builder.append(backend.getKey()).append(";dur=").append(toMillis(backend.getValue()[1]))
+                    .append(";desc=\"").append(backend.getValue()[0]).append(" calls\"");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the timings for logging, e.g. "security 2ms, oracle 12ms (3 calls), solr 40ms (1 calls)".
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, long[]> stage : stages.entrySet()) {
+            appendSeparator(builder);
+            builder.append(stage.getKey()).append(' ').append(stage.getValue()[1] / 1000).append("ms");
+        }
+        for (Map.Entry<String, long[]> backend : backends.entrySet()) {
+            appendSeparator(builder);
+            builder.append(backend.getKey()).append(' ').append(backend.getValue()[1] / 1000).append("ms (")
+                    .append(backend.getValue()[0]).append(" calls)");
+        }
+        return builder.toString();
+    }
+
+    private static void appendSeparator(StringBuilder builder) {
+        if (builder.length() > 0) {
+            builder.append(", ");
+        }
+    }
+
+    private static String toMillis(long micros) {
+        return String.format(Locale.ENGLISH, "%.1f", micros / 1000.0);
+    }
+
+}
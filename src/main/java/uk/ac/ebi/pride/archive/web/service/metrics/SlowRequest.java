@@ -0,0 +1,97 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * A request that took longer than the slow request threshold, with the breakdown of its time
+ * (see {@link RequestProfile}).
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class SlowRequest {
+
+    private final Date time;
+    private final String method;
+    private final String uri;
+    private final Map<String, String> parameters;
+    private final String handler;
+    private final int status;
+    private final long durationMillis;
+    private final long resultBytes;
+    private final Map<String, Long> stageMillis;
+    private final Map<String, Long> backendMillis;
+
+    public SlowRequest(Date time, String method, String uri, Map<String, String> parameters, String handler, int status,
+                       long durationMillis, long resultBytes, Map<String, Long> stageMillis, Map<String, Long> backendMillis) {
+        this.time = time;
+        this.method = method;
+        this.uri = uri;
+        this.parameters = parameters;
+        this.handler = handler;
+        this.status = status;
+        this.durationMillis = durationMillis;
+        this.resultBytes = resultBytes;
+        this.stageMillis = stageMillis;
+        this.backendMillis = backendMillis;
+    }
+
+    /**
+     * @return the time the request finished.
+     */
+    public Date getTime() {
+        return time;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the request parameters, multiple values are separated by commas.
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return the handler method, null if the request did not reach a handler (e.g. it was rejected by the security).
+     */
+    public String getHandler() {
+        return handler;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return the size of the serialized result, -1 if not known (e.g. for file downloads).
+     */
+    public long getResultBytes() {
+        return resultBytes;
+    }
+
+    /**
+     * @return the time spent in the stages of the request handling, by stage.
+     */
+    public Map<String, Long> getStageMillis() {
+        return stageMillis;
+    }
+
+    /**
+     * @return the time spent in calls of the backends, by backend.
+     */
+    public Map<String, Long> getBackendMillis() {
+        return backendMillis;
+    }
+}
@@ -0,0 +1,118 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the most recent requests that took longer than a threshold, with the breakdown of their time,
+ * to diagnose the tail latency of the endpoints without enabling debug logging.
+ *
+ * The requests are kept in a fixed size ring buffer, the oldest request is overwritten by a new one.
+ * Recording is lock-free and only done for slow requests, so it does not slow down the others.
+ *
+ * Note: this is defined in the root application context, as the requests are recorded by the
+ * request metrics filter.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class SlowRequestRecorder {
+
+    // long parameter values (e.g. lists of accessions) are cut, to limit the memory use
+    private static final int MAX_PARAMETER_LENGTH = 200;
+
+    private final long thresholdMillis;
+    private final AtomicReferenceArray<SlowRequest> requests;
+    private final AtomicLong recordedCount = new AtomicLong();
+
+    /**
+     * @param thresholdMillis the minimum duration of the requests to record.
+     * @param capacity the number of requests to keep.
+     */
+    public SlowRequestRecorder(long thresholdMillis, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.thresholdMillis = thresholdMillis;
+        this.requests = new AtomicReferenceArray<>(capacity);
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * @return whether a request of the given duration is slow enough to be recorded.
+     */
+    public boolean isSlow(long durationMillis) {
+        return durationMillis >= thresholdMillis;
+    }
+
+    /**
+     * Records the request if it is slow.
+     *
+     * @param parameters the parameters of the request, as in {@link javax.servlet.ServletRequest#getParameterMap()}.
+     * @param profile the profile of the request.
+     */
+    public void record(String method, String uri, Map<String, String[]> parameters, int status, long durationMillis,
+                       RequestProfile profile) {
+        if (!isSlow(durationMillis)) {
+            return;
+        }
+        SlowRequest request = new SlowRequest(new Date(), method, uri, toParameters(parameters), profile.getHandler(),
+                status, durationMillis, profile.getResultBytes(), toMillis(profile.getStageMicros()),
+                toMillis(profile.getBackendMicros()));
+        long index = recordedCount.getAndIncrement();
+        requests.set((int) (index % requests.length()), request);
+    }
+
+    /**
+     * @return the total number of slow requests recorded since start, including those no longer kept.
+     */
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    /**
+     * @return the slow requests kept, the most recent first.
+     */
+    public List<SlowRequest> getRecentSlowRequests() {
+        List<SlowRequest> recent = new ArrayList<>(requests.length());
+        for (int i = 0; i < requests.length(); i++) {
+            SlowRequest request = requests.get(i);
+            if (request != null) {
+                recent.add(request);
+            }
+        }
+        Collections.sort(recent, (a, b) -> b.getTime().compareTo(a.getTime()));
+        return recent;
+    }
+
+    private static Map<String, String> toParameters(Map<String, String[]> parameters) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            String value = String.join(",", parameter.getValue());
+            if (value.length() > MAX_PARAMETER_LENGTH) {
+                value = value.substring(0, MAX_PARAMETER_LENGTH) + "...";
+            }
+            values.put(parameter.getKey(), value);
+        }
+        return values;
+    }
+
+    private static Map<String, Long> toMillis(Map<String, Long> micros) {
+        Map<String, Long> millis = new TreeMap<>();
+        for (Map.Entry<String, Long> timing : micros.entrySet()) {
+            millis.put(timing.getKey(), timing.getValue() / 1000);
+        }
+        return millis;
+    }
+
+}
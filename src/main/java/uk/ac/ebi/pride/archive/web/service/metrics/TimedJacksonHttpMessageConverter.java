@@ -0,0 +1,51 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import com.google.common.io.CountingOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The JSON message converter of the web service, which adds the time spent in the serialization of
+ * the response and the size of the response to the profile of the request (see {@link RequestProfile}).
+ *
+ * Note: this is registered in the MVC configuration, ahead of the default converters.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJacksonHttpMessageConverter {
+
+    @Override
+    protected void writeInternal(Object object, final HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        RequestProfile profile = RequestProfile.current();
+        if (profile == null) {
+            super.writeInternal(object, outputMessage);
+            return;
+        }
+        final CountingOutputStream body = new CountingOutputStream(outputMessage.getBody());
+        long start = RequestProfile.startStage();
+        try {
+            super.writeInternal(object, new HttpOutputMessage() {
+                @Override
+                public OutputStream getBody() {
+                    return body;
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return outputMessage.getHeaders();
+                }
+            });
+        } finally {
+            RequestProfile.stopStage(RequestProfile.SERIALIZATION, start);
+            profile.setResultBytes(body.getCount());
+        }
+    }
+
+}
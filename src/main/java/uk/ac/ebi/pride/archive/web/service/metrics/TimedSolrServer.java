@@ -0,0 +1,57 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.IOException;
+
+/**
+ * Times the requests to a Solr core (see {@link BackendCallTimer}), by core and request handler,
+ * e.g. "project/select". All requests of the SolrJ API (queries, pings, updates) go through
+ * {@link #request(SolrRequest)}, so the search services do not need to be changed or proxied.
+ *
+ * Note: the Solr servers are defined in the Solr application context, with the actual server as an
+ * inner bean, so only the timed server can be injected.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class TimedSolrServer extends SolrServer {
+
+    private final String core;
+    private final SolrServer delegate;
+    private final transient BackendCallTimer timer;
+
+    /**
+     * @param core the name of the core, used in the operation names.
+     * @param delegate the server to send the requests to.
+     * @param metricsRegistry the registry to record the requests in.
+     */
+    public TimedSolrServer(String core, SolrServer delegate, MetricsRegistry metricsRegistry) {
+        this.core = core;
+        this.delegate = delegate;
+        this.timer = new BackendCallTimer("solr", metricsRegistry);
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request) throws SolrServerException, IOException {
+        long start = timer.start();
+        boolean failed = true;
+        try {
+            NamedList<Object> response = delegate.request(request);
+            failed = false;
+            return response;
+        } finally {
+            String path = request.getPath() == null ? "/select" : request.getPath();
+            timer.stop(core + path, start, failed);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+}
@@ -0,0 +1,74 @@
+package uk.ac.ebi.pride.archive.web.service.repository;
+
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileSource;
+import uk.ac.ebi.pride.archive.web.service.metrics.BackendCallTimer;
+import uk.ac.ebi.pride.archive.web.service.metrics.MetricsRegistry;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the files of a project or an assay with a single aggregate query, instead of loading
+ * all file records (and their related entities) from the database.
+ * Note: this does not check access to the project or assay, this has to be done by the caller.
+ * This is defined in the database application context. The queries are timed for the backend call metrics.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class FileCountService {
+
+    private static final String COUNT_BY_PROJECT_QUERY = "select f.fileSource, count(f) from ProjectFile f, Project p" +
+            " where f.projectId = p.id and p.accession = :accession group by f.fileSource";
+    private static final String COUNT_BY_ASSAY_QUERY = "select f.fileSource, count(f) from ProjectFile f, Assay a" +
+            " where f.assayId = a.id and a.accession = :accession group by f.fileSource";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final BackendCallTimer timer;
+
+    public FileCountService(EntityManagerFactory entityManagerFactory, MetricsRegistry metricsRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.timer = new BackendCallTimer("oracle", metricsRegistry);
+    }
+
+    /**
+     * @return the number of files of the project by file source, file sources without files are left out.
+     */
+    public Map<ProjectFileSource, Long> countByProjectAccession(String projectAccession) {
+        return count("FileCountService.countByProjectAccession", COUNT_BY_PROJECT_QUERY, projectAccession);
+    }
+
+    /**
+     * @return the number of files of the assay by file source, file sources without files are left out.
+     */
+    public Map<ProjectFileSource, Long> countByAssayAccession(String assayAccession) {
+        return count("FileCountService.countByAssayAccession", COUNT_BY_ASSAY_QUERY, assayAccession);
+    }
+
+    private Map<ProjectFileSource, Long> count(String operation, String jpql, String accession) {
+        List<Object[]> rows;
+        long start = timer.start();
+        boolean failed = true;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+            query.setParameter("accession", accession);
+            rows = query.getResultList();
+            failed = false;
+        } finally {
+            entityManager.close();
+            timer.stop(operation, start, failed);
+        }
+
+        Map<ProjectFileSource, Long> counts = new EnumMap<>(ProjectFileSource.class);
+        for (Object[] row : rows) {
+            counts.put((ProjectFileSource) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+}
@@ -0,0 +1,78 @@
+package uk.ac.ebi.pride.archive.web.service.search;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Retrieves the facet counts of a project search. All requested facet fields are counted
+ * with a single Solr request that does not return any documents.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class ProjectFacetSearchService {
+
+    private static final int DEFAULT_FACET_LIMIT = 100;
+
+    private final SolrServer projectServer;
+
+    private int facetLimit = DEFAULT_FACET_LIMIT;
+
+    public ProjectFacetSearchService(SolrServer projectServer) {
+        this.projectServer = projectServer;
+    }
+
+    /**
+     * @param searchQuery the query of the search (see {@link ProjectSolrQueries#newSearchQuery(String, String, String[])}).
+     * @param facetFields the index fields to count the values of.
+     * @return for each facet field the values ordered by decreasing count, values without hits are left out.
+     */
+    public Map<String, Map<String, Long>> getFacetCounts(SolrQuery searchQuery, String[] facetFields) {
+        return getFacetCounts(searchQuery, facetFields, facetLimit);
+    }
+
+    /**
+     * @param facetLimit the maximum number of values per facet field, a negative value for all values.
+     * @see #getFacetCounts(SolrQuery, String[])
+     */
+    public Map<String, Map<String, Long>> getFacetCounts(SolrQuery searchQuery, String[] facetFields, int facetLimit) {
+        SolrQuery query = new SolrQuery();
+        query.add(searchQuery);
+        query.setRows(0);
+        query.setFacet(true);
+        query.setFacetMinCount(1);
+        query.setFacetLimit(facetLimit);
+        query.addFacetField(facetFields);
+
+        QueryResponse response;
+        try {
+            response = projectServer.query(query);
+        } catch (SolrServerException e) {
+            throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Could not retrieve project facets", e);
+        }
+
+        Map<String, Map<String, Long>> facetCounts = new LinkedHashMap<>();
+        for (String facetField : facetFields) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            FacetField facet = response.getFacetField(facetField);
+            if (facet != null && facet.getValues() != null) {
+                for (FacetField.Count count : facet.getValues()) {
+                    counts.put(count.getName(), count.getCount());
+                }
+            }
+            facetCounts.put(facetField, counts);
+        }
+        return facetCounts;
+    }
+
+    public void setFacetLimit(int facetLimit) {
+        this.facetLimit = facetLimit;
+    }
+}
@@ -0,0 +1,71 @@
+package uk.ac.ebi.pride.archive.web.service.search;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrException;
+import uk.ac.ebi.pride.archive.search.service.ProjectSearchSummary;
+
+import java.util.List;
+
+/**
+ * Retrieves a page of project search results together with the total number of matching projects.
+ * Solr counts the matches for every search anyway, so the total comes with the same request
+ * instead of a separate count query. Counts on their own are retrieved with the same query,
+ * without returning any documents.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class ProjectListSearchService {
+
+    private static final String ASCENDING_ORDER = "asc";
+
+    private final SolrServer projectServer;
+
+    public ProjectListSearchService(SolrServer projectServer) {
+        this.projectServer = projectServer;
+    }
+
+    /**
+     * @param searchQuery the query of the search (see {@link ProjectSolrQueries#newSearchQuery(String, String, String[])}).
+     * @param start the offset of the first project to return.
+     * @param rows the number of projects to return.
+     * @param sortBy the index field to sort on, or an empty value to sort by relevance.
+     * @param order the sort order, asc or desc.
+     * @return the requested page of projects and the number of projects matching the search.
+     */
+    public ProjectSearchResult searchProjects(SolrQuery searchQuery, int start, int rows, String sortBy, String order) {
+        SolrQuery query = new SolrQuery();
+        query.add(searchQuery);
+        query.setStart(start);
+        query.setRows(rows);
+        if (sortBy != null && !sortBy.isEmpty()) {
+            query.setSort(sortBy, ASCENDING_ORDER.equalsIgnoreCase(order) ? SolrQuery.ORDER.asc : SolrQuery.ORDER.desc);
+        }
+
+        QueryResponse response = query(query, "Could not search projects");
+        List<ProjectSearchSummary> projects = response.getBeans(ProjectSearchSummary.class);
+        return new ProjectSearchResult(projects, response.getResults().getNumFound());
+    }
+
+    /**
+     * @param searchQuery the query of the search (see {@link ProjectSolrQueries#newSearchQuery(String, String, String[])}).
+     * @return the number of projects matching the search.
+     */
+    public long countProjects(SolrQuery searchQuery) {
+        SolrQuery query = new SolrQuery();
+        query.add(searchQuery);
+        query.setRows(0);
+        return query(query, "Could not count projects").getResults().getNumFound();
+    }
+
+    private QueryResponse query(SolrQuery query, String errorMessage) {
+        try {
+            return projectServer.query(query);
+        } catch (SolrServerException e) {
+            throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, errorMessage, e);
+        }
+    }
+}
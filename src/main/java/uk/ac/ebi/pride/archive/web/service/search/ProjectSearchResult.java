@@ -0,0 +1,36 @@
+package uk.ac.ebi.pride.archive.web.service.search;
+
+import uk.ac.ebi.pride.archive.search.service.ProjectSearchSummary;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of project search results, with the total number of projects matching the search.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class ProjectSearchResult {
+
+    private final List<ProjectSearchSummary> projects;
+    private final long numFound;
+
+    public ProjectSearchResult(List<ProjectSearchSummary> projects, long numFound) {
+        this.projects = projects == null
+                ? Collections.<ProjectSearchSummary>emptyList()
+                : Collections.unmodifiableList(projects);
+        this.numFound = numFound;
+    }
+
+    public List<ProjectSearchSummary> getProjects() {
+        return projects;
+    }
+
+    /**
+     * @return the number of projects matching the search, over all pages.
+     */
+    public long getNumFound() {
+        return numFound;
+    }
+}
@@ -0,0 +1,32 @@
+package uk.ac.ebi.pride.archive.web.service.search;
+
+import org.apache.solr.client.solrj.SolrQuery;
+
+/**
+ * Builds the Solr query of a project search. The project list and its facet counts are both
+ * retrieved with this query, so the counts always match the listed projects.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public final class ProjectSolrQueries {
+
+    private ProjectSolrQueries() {
+    }
+
+    /**
+     * @param term the search term, as passed to the project search.
+     * @param queryFields the (boosted) fields to search the term in.
+     * @param queryFilters the filter queries restricting the search.
+     * @return the query matching the projects of the search, without paging, sorting or faceting.
+     */
+    public static SolrQuery newSearchQuery(String term, String queryFields, String[] queryFilters) {
+        SolrQuery query = new SolrQuery(term);
+        query.set("defType", "edismax");
+        query.set("qf", queryFields);
+        if (queryFilters != null && queryFilters.length > 0) {
+            query.setFilterQueries(queryFilters);
+        }
+        return query;
+    }
+}
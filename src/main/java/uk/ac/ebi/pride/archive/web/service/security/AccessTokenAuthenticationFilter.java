@@ -0,0 +1,59 @@
+package uk.ac.ebi.pride.archive.web.service.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Authenticates requests carrying an access token in the "Authorization: Bearer" header (see
+ * {@link AccessTokenService}). Requests with an invalid or expired token are rejected, requests
+ * without a token are passed on unchanged (e.g. to the HTTP Basic authentication).
+ *
+ * Note: this is defined in the security application context and runs before the Basic authentication filter.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenAuthenticationFilter.class);
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AccessTokenService accessTokenService;
+
+    public AccessTokenAuthenticationFilter(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        String header = request.getHeader(AUTHORIZATION_HEADER);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Authentication authentication = accessTokenService.parseToken(header.substring(BEARER_PREFIX.length()).trim());
+        if (authentication == null) {
+            logger.debug("Rejected request with invalid or expired access token");
+            SecurityContextHolder.clearContext();
+            response.setHeader("WWW-Authenticate", "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired access token");
+            return;
+        }
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        chain.doFilter(request, response);
+    }
+
+}
@@ -0,0 +1,147 @@
+package uk.ac.ebi.pride.archive.web.service.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Issues and validates signed, short lived access tokens. A token carries the name and the roles of
+ * the user and its expiry time, signed with HMAC-SHA256, so it can be validated without any database
+ * lookup or password hash check. Tokens can not be revoked, hence their short life time.
+ *
+ * Token format: base64url(payload) "." base64url(signature), with the payload being the lines
+ * username, expiry time (milliseconds since epoch) and comma separated roles.
+ *
+ * Note: all instances of the web service need the same signing key for tokens to be accepted by
+ * every instance. Starting without a configured key fails, unless a random key is explicitly allowed
+ * (security.token.random.key.allowed, for development only), which is only valid until restart.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class AccessTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenService.class);
+
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private final SecretKeySpec signingKey;
+    private final long timeToLiveMillis;
+
+    public AccessTokenService(String signingKey, int timeToLiveSeconds) {
+        this(signingKey, false, timeToLiveSeconds);
+    }
+
+    public AccessTokenService(String signingKey, boolean randomKeyAllowed, int timeToLiveSeconds) {
+        byte[] key;
+        // an unresolved placeholder means the build profile does not provide a key
+        if (signingKey == null || signingKey.trim().isEmpty() || signingKey.startsWith("${")) {
+            if (!randomKeyAllowed) {
+                throw new IllegalArgumentException("No access token signing key configured!");
+            }
+            logger.warn("No access token signing key configured, using a random key. Tokens will not be valid on other instances or after a restart.");
+            key = new byte[MIN_KEY_LENGTH];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = signingKey.trim().getBytes(StandardCharsets.UTF_8);
+            if (key.length < MIN_KEY_LENGTH) {
+                throw new IllegalArgumentException("The access token signing key has to be at least " + MIN_KEY_LENGTH + " bytes long!");
+            }
+        }
+        this.signingKey = new SecretKeySpec(key, SIGNATURE_ALGORITHM);
+        this.timeToLiveMillis = timeToLiveSeconds * 1000L;
+    }
+
+    public long getTimeToLiveSeconds() {
+        return timeToLiveMillis / 1000;
+    }
+
+    /**
+     * @param authentication an authenticated user.
+     * @return a token for the user and its roles, valid for the configured time to live.
+     */
+    public String createToken(Authentication authentication) {
+        StringBuilder roles = new StringBuilder();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (roles.length() > 0) {
+                roles.append(',');
+            }
+            roles.append(authority.getAuthority());
+        }
+        String payload = authentication.getName() + '\n' + (System.currentTimeMillis() + timeToLiveMillis) + '\n' + roles;
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payloadBytes) + '.' + encoder.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * @param token a token as issued by {@link #createToken(Authentication)}.
+     * @return the authentication represented by the token, or null if the token is malformed,
+     *         has not been signed with the signing key of this service or has expired.
+     */
+    public Authentication parseToken(String token) {
+        int separator = token.indexOf('.');
+        if (separator < 1) {
+            return null;
+        }
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            payloadBytes = decoder.decode(token.substring(0, separator));
+            signature = decoder.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        // constant time comparison, so the signature can not be guessed byte by byte
+        if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+            return null;
+        }
+
+        String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\n", -1);
+        if (fields.length != 3) {
+            return null;
+        }
+        long expiry;
+        try {
+            expiry = Long.parseLong(fields[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (expiry < System.currentTimeMillis()) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = fields[2].isEmpty()
+                ? new ArrayList<GrantedAuthority>(0)
+                : AuthorityUtils.commaSeparatedStringToAuthorityList(fields[2]);
+        User user = new User(fields[0], "", authorities);
+        return new UsernamePasswordAuthenticationToken(user, null, authorities);
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign access token", e);
+        }
+    }
+
+}
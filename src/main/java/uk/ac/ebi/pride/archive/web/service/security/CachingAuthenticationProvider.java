@@ -0,0 +1,118 @@
+package uk.ac.ebi.pride.archive.web.service.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers successful username/password authentications for a short time, so clients that send
+ * their credentials with every request (the web service is stateless) only pay for the password
+ * hash check once per time window instead of on every request.
+ *
+ * Credentials are never kept in memory: entries are keyed by a HMAC-SHA256 digest of username and
+ * password, with a random key generated at start up. Failed authentications are not cached.
+ * A changed password results in a new key, the old credentials will however still be accepted
+ * until their entry expires or the entries of the user are invalidated.
+ *
+ * Note: this is defined in the security application context, wrapping the DAO authentication provider.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingAuthenticationProvider.class);
+
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+    private static final int MAX_CACHED_AUTHENTICATIONS = 10000;
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> authentications;
+    private final SecretKeySpec digestKey;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, CacheRegistry cacheRegistry, int timeToLiveSeconds) {
+        this.delegate = delegate;
+        this.authentications = cacheRegistry.register("authentication", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_AUTHENTICATIONS)
+                .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .<String, Authentication>build());
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, DIGEST_ALGORITHM);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (authentication.getName() == null || !(authentication.getCredentials() instanceof String)) {
+            return delegate.authenticate(authentication);
+        }
+
+        String key = digest(authentication.getName(), (String) authentication.getCredentials());
+        Authentication cached = authentications.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            // the returned token must not hold on to the password, as it is kept in memory
+            Authentication token = new UsernamePasswordAuthenticationToken(result.getPrincipal(), null, result.getAuthorities());
+            authentications.put(key, token);
+            return token;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    /**
+     * Drops the remembered authentications of a user, e.g. after the password or the roles of the user changed.
+     *
+     * @param username the name of the user.
+     */
+    public void invalidate(String username) {
+        Iterator<Map.Entry<String, Authentication>> iterator = authentications.asMap().entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().getName().equals(username)) {
+                iterator.remove();
+            }
+        }
+        logger.debug("Cached authentications of " + username + " have been invalidated");
+    }
+
+    private String digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+            mac.init(digestKey);
+            byte[] name = username.getBytes(StandardCharsets.UTF_8);
+            // length prefix, so that different splits of the same string result in different digests
+            mac.update(ByteBuffer.allocate(4).putInt(name.length).array());
+            mac.update(name);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not compute credentials digest", e);
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package uk.ac.ebi.pride.archive.web.service.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the access decisions of the permission evaluator used by the secure services, which
+ * otherwise look up the project (and assay) of every checked accession in the database, often
+ * several times per request.
+ *
+ * Whether a target (e.g. a project accession) is public is decided by evaluating the permission
+ * for an anonymous user, this is cached for all users. Only for non-public targets the decision
+ * for the actual user (ownership, reviewer access, etc) is evaluated and cached for that user.
+ * Both caches have short time to live, so a newly published or re-assigned project is picked up
+ * within a minute. Additionally all decisions are remembered for the duration of a request.
+ * Only accession and ID targets are cached, checks of domain objects are passed on as they are.
+ *
+ * Note: this is defined in the security application context, wrapping the permission evaluator.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class CachingPermissionEvaluator implements PermissionEvaluator {
+
+    private static final String REQUEST_DECISIONS_ATTRIBUTE = CachingPermissionEvaluator.class.getName() + ".DECISIONS";
+    private static final String ANONYMOUS_KEY = "cachingPermissionEvaluator";
+    private static final Authentication ANONYMOUS = new AnonymousAuthenticationToken(ANONYMOUS_KEY, "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+    private static final int MAX_CACHED_DECISIONS = 50000;
+    private static final int PUBLIC_TIME_TO_LIVE_SECONDS = 60;
+    private static final int USER_TIME_TO_LIVE_SECONDS = 30;
+
+    private final PermissionEvaluator delegate;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+    private final Cache<String, Boolean> publicDecisions;
+    private final Cache<String, Boolean> userDecisions;
+
+    public CachingPermissionEvaluator(PermissionEvaluator delegate, CacheRegistry cacheRegistry) {
+        this.delegate = delegate;
+        this.publicDecisions = cacheRegistry.register("permission-public", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_DECISIONS)
+                .expireAfterWrite(PUBLIC_TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS)
+                .recordStats()
+                .<String, Boolean>build());
+        this.userDecisions = cacheRegistry.register("permission-user", CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_DECISIONS)
+                .expireAfterWrite(USER_TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS)
+                .recordStats()
+                .<String, Boolean>build());
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        if (!isCacheable(targetDomainObject) || !(permission instanceof String)) {
+            return delegate.hasPermission(authentication, targetDomainObject, permission);
+        }
+        return decide(authentication, targetDomainObject.getClass().getSimpleName() + ':' + targetDomainObject, permission,
+                targetDomainObject, null);
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission) {
+        if (!isCacheable(targetId) || !(permission instanceof String)) {
+            return delegate.hasPermission(authentication, targetId, targetType, permission);
+        }
+        return decide(authentication, targetType + ':' + targetId.getClass().getSimpleName() + ':' + targetId, permission,
+                targetId, targetType);
+    }
+
+    private boolean decide(Authentication authentication, String target, Object permission, Object targetObject, String targetType) {
+        String targetKey = permission + "|" + target;
+        boolean anonymous = authentication == null || trustResolver.isAnonymous(authentication);
+        String userKey = anonymous ? null : authentication.getName() + "|" + targetKey;
+
+        Map<String, Boolean> requestDecisions = getRequestDecisions();
+        String requestKey = anonymous ? targetKey : userKey;
+        if (requestDecisions != null) {
+            Boolean decision = requestDecisions.get(requestKey);
+            if (decision != null) {
+                return decision;
+            }
+        }
+
+        Boolean publicTarget = publicDecisions.getIfPresent(targetKey);
+        if (publicTarget == null) {
+            publicTarget = evaluate(anonymous ? authentication : ANONYMOUS, targetObject, targetType, permission);
+            publicDecisions.put(targetKey, publicTarget);
+        }
+
+        boolean decision = publicTarget;
+        if (!decision && !anonymous) {
+            Boolean userDecision = userDecisions.getIfPresent(userKey);
+            if (userDecision == null) {
+                userDecision = evaluate(authentication, targetObject, targetType, permission);
+                userDecisions.put(userKey, userDecision);
+            }
+            decision = userDecision;
+        }
+
+        if (requestDecisions != null) {
+            requestDecisions.put(requestKey, decision);
+        }
+        return decision;
+    }
+
+    private boolean evaluate(Authentication authentication, Object targetObject, String targetType, Object permission) {
+        if (targetType == null) {
+            return delegate.hasPermission(authentication, targetObject, permission);
+        }
+        return delegate.hasPermission(authentication, (Serializable) targetObject, targetType, permission);
+    }
+
+    /**
+     * @return the decisions made during the current request, or null if not called in a request thread.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Boolean> getRequestDecisions() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Boolean> decisions = (Map<String, Boolean>) attributes.getAttribute(REQUEST_DECISIONS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (decisions == null) {
+            decisions = new ConcurrentHashMap<>();
+            attributes.setAttribute(REQUEST_DECISIONS_ATTRIBUTE, decisions, RequestAttributes.SCOPE_REQUEST);
+        }
+        return decisions;
+    }
+
+    private static boolean isCacheable(Object target) {
+        return target instanceof String || target instanceof Number;
+    }
+
+}
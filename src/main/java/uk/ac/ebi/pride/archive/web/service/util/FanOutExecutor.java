@@ -0,0 +1,137 @@
+package uk.ac.ebi.pride.archive.web.service.util;
+
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.web.service.metrics.RequestProfile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded thread pool to run the backend lookups of a single request concurrently.
+ * Tasks run with the security context of the submitting thread, so the secure services
+ * check access for the requesting user, and with its request profile, so their backend
+ * calls are included in the time breakdown of the request.
+ * Tasks are never run on the requesting thread: if the pool is saturated they are rejected,
+ * and reported like tasks that did not complete before the deadline.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+@Component
+public class FanOutExecutor {
+
+    private static final int POOL_SIZE = 16;
+    private static final int MAX_QUEUED_TASKS = 1000;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED_TASKS),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "fan-out-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                // running on the requesting thread would not respect the deadline of the request
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submits a task to the pool. If the pool is saturated, the returned future fails
+     * with a {@link RejectedExecutionException}.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(new DelegatingSecurityContextCallable<>(RequestProfile.propagate(task)));
+        } catch (RejectedExecutionException e) {
+            return rejected(e);
+        }
+    }
+
+    /**
+     * Runs all tasks and waits for them to complete, at most for the given time.
+     * Tasks that did not complete in time are cancelled, tasks rejected by the saturated pool
+     * fail with a {@link RejectedExecutionException}.
+     *
+     * @see ExecutorService#invokeAll(java.util.Collection, long, TimeUnit)
+     */
+    public <T> List<Future<T>> invokeAll(List<Callable<T>> tasks, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(submit(task));
+            }
+            for (Future<T> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | CancellationException e) {
+                    // reported by the future itself
+                } catch (TimeoutException e) {
+                    break;
+                }
+            }
+        } finally {
+            // no effect on the tasks that already completed
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * Waits for the result of a task submitted with {@link #submit(Callable)}, unwrapping the exception the task failed with.
+     *
+     * @throws TimeoutException if the result is not available before the deadline, the task is cancelled in that case,
+     * or if the task was rejected by the saturated pool.
+     */
+    public static <T> T get(Future<T> future, long deadlineMillis) throws InterruptedException, TimeoutException {
+        try {
+            return future.get(Math.max(0, deadlineMillis - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RejectedExecutionException) {
+                throw new TimeoutException("Fan-out pool saturated: " + cause.getMessage());
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static <T> Future<T> rejected(final RejectedExecutionException e) {
+        FutureTask<T> future = new FutureTask<>(new Callable<T>() {
+            @Override
+            public T call() {
+                throw e;
+            }
+        });
+        future.run();
+        return future;
+    }
+}
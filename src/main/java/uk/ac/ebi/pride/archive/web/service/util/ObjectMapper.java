@@ -84,6 +84,11 @@ public final class ObjectMapper {
         return mappedObject;
     }
     public static ProjectDetail mapProjectSummary2WSProjectDetail(ProjectSummary object, Collection<AssaySummary> assays) {
+        // generate project level counts from list of assays
+        return mapProjectSummary2WSProjectDetail(object, ProjectAggregates.of(assays));
+    }
+
+    public static ProjectDetail mapProjectSummary2WSProjectDetail(ProjectSummary object, ProjectAggregates aggregates) {
         if (object == null) { return null; }
         ProjectDetail mappedObject = mapProjectSummary2WSProjectSummary(object, ProjectDetail.class);
 
@@ -103,32 +108,11 @@ public final class ObjectMapper {
         mappedObject.setDataProcessingProtocol(object.getDataProcessingProtocol());
         mappedObject.setOtherOmicsLink(object.getOtherOmicsLink());
 
-        // generate project level counts from list of assays
-        int numProteins = 0;
-        int numPeptides = 0;
-        int numUniquePeptides = 0;
-        int numSpectra = 0;
-        int numIdentSpectra = 0;
-        if (assays != null) {
-            for (AssaySummary assay : assays) {
-                numProteins += assay.getProteinCount();
-                numPeptides += assay.getPeptideCount();
-                numUniquePeptides += assay.getUniquePeptideCount();
-                numSpectra += assay.getTotalSpectrumCount();
-                numIdentSpectra += assay.getIdentifiedSpectrumCount();
-            }
-        } else {
-            numProteins = -1;
-            numPeptides = -1;
-            numUniquePeptides = -1;
-            numSpectra = -1;
-            numIdentSpectra = -1;
-        }
-        mappedObject.setNumProteins(numProteins);
-        mappedObject.setNumPeptides(numPeptides);
-        mappedObject.setNumUniquePeptides(numUniquePeptides);
-        mappedObject.setNumSpectra(numSpectra);
-        mappedObject.setNumIdentifiedSpectra(numIdentSpectra);
+        mappedObject.setNumProteins(aggregates.getNumProteins());
+        mappedObject.setNumPeptides(aggregates.getNumPeptides());
+        mappedObject.setNumUniquePeptides(aggregates.getNumUniquePeptides());
+        mappedObject.setNumSpectra(aggregates.getNumSpectra());
+        mappedObject.setNumIdentifiedSpectra(aggregates.getNumIdentifiedSpectra());
         mappedObject.setReferences(mapProjectRefs(object.getReferences()));
 
         return mappedObject;
@@ -318,13 +302,25 @@ public final class ObjectMapper {
         return mappedObject;
     }
     public static List<FileDetail> mapFileSummariesToWSFileDetails(Collection<FileSummary> fileSummaries) {
+        return mapFileSummariesToWSFileDetails(fileSummaries, null);
+    }
+    /**
+     * @param fileIds if not null, receives the internal file ID (which is not part of the FileDetail)
+     *                of each mapped FileDetail. Should be an IdentityHashMap, as FileDetail objects
+     *                of different files may be equal.
+     */
+    public static List<FileDetail> mapFileSummariesToWSFileDetails(Collection<FileSummary> fileSummaries, Map<FileDetail, Long> fileIds) {
         if (fileSummaries == null) { return null; }
         if (fileSummaries.isEmpty()) { return new ArrayList<FileDetail>(0); }
 
         List<FileDetail> mappedObjects = new ArrayList<FileDetail>(fileSummaries.size());
         for (FileSummary fileSummary : fileSummaries) {
             if (fileSummary.getFileSource() != ProjectFileSource.INTERNAL) {
-                mappedObjects.add( mapFileSummaryToWSFileDetail(fileSummary) );
+                FileDetail fileDetail = mapFileSummaryToWSFileDetail(fileSummary);
+                mappedObjects.add( fileDetail );
+                if (fileIds != null) {
+                    fileIds.put(fileDetail, fileSummary.getId());
+                }
             } // skip internal files
         }
         return mappedObjects;
@@ -0,0 +1,82 @@
+package uk.ac.ebi.pride.archive.web.service.util;
+
+import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
+
+import java.util.Collection;
+
+/**
+ * Project level protein, peptide and spectrum counts, summed up over all assays of a project.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class ProjectAggregates {
+
+    /**
+     * Aggregates of a project whose assays could not be retrieved.
+     */
+    public static final ProjectAggregates UNKNOWN = new ProjectAggregates(-1, -1, -1, -1, -1, -1);
+
+    private final long assayCount;
+    private final int numProteins;
+    private final int numPeptides;
+    private final int numUniquePeptides;
+    private final int numSpectra;
+    private final int numIdentifiedSpectra;
+
+    public ProjectAggregates(long assayCount, int numProteins, int numPeptides, int numUniquePeptides,
+                             int numSpectra, int numIdentifiedSpectra) {
+        this.assayCount = assayCount;
+        this.numProteins = numProteins;
+        this.numPeptides = numPeptides;
+        this.numUniquePeptides = numUniquePeptides;
+        this.numSpectra = numSpectra;
+        this.numIdentifiedSpectra = numIdentifiedSpectra;
+    }
+
+    public static ProjectAggregates of(Collection<AssaySummary> assays) {
+        if (assays == null) {
+            return UNKNOWN;
+        }
+        int numProteins = 0;
+        int numPeptides = 0;
+        int numUniquePeptides = 0;
+        int numSpectra = 0;
+        int numIdentSpectra = 0;
+        for (AssaySummary assay : assays) {
+            numProteins += assay.getProteinCount();
+            numPeptides += assay.getPeptideCount();
+            numUniquePeptides += assay.getUniquePeptideCount();
+            numSpectra += assay.getTotalSpectrumCount();
+            numIdentSpectra += assay.getIdentifiedSpectrumCount();
+        }
+        return new ProjectAggregates(assays.size(), numProteins, numPeptides, numUniquePeptides, numSpectra, numIdentSpectra);
+    }
+
+    /**
+     * @return the number of assays the counts were summed up from.
+     */
+    public long getAssayCount() {
+        return assayCount;
+    }
+
+    public int getNumProteins() {
+        return numProteins;
+    }
+
+    public int getNumPeptides() {
+        return numPeptides;
+    }
+
+    public int getNumUniquePeptides() {
+        return numUniquePeptides;
+    }
+
+    public int getNumSpectra() {
+        return numSpectra;
+    }
+
+    public int getNumIdentifiedSpectra() {
+        return numIdentifiedSpectra;
+    }
+}
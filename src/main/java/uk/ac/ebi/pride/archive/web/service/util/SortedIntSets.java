@@ -0,0 +1,89 @@
+package uk.ac.ebi.pride.archive.web.service.util;
+
+import java.util.Arrays;
+
+/**
+ * Set operations on strictly increasing int arrays (e.g. dictionary encoded accessions).
+ * All methods return new arrays and never modify their arguments.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public final class SortedIntSets {
+
+    private SortedIntSets() {}
+
+    /**
+     * @param values arbitrary values, may contain duplicates.
+     * @return a sorted copy of the values without duplicates.
+     */
+    public static int[] of(int[] values) {
+        if (values.length == 0) { return values; }
+        int[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    public static int[] intersection(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    public static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[size++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[size++] = b[j++];
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) { result[size++] = a[i++]; }
+        while (j < b.length) { result[size++] = b[j++]; }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return all values of a that are not contained in b.
+     */
+    public static int[] difference(int[] a, int[] b) {
+        int[] result = new int[a.length];
+        int i = 0, j = 0, size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[size++] = a[i++];
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) { result[size++] = a[i++]; }
+        return Arrays.copyOf(result, size);
+    }
+
+}
@@ -0,0 +1,224 @@
+package uk.ac.ebi.pride.archive.web.service.util;
+
+import java.util.*;
+
+/**
+ * Immutable prefix index for typeahead suggestions. Every word of a suggestion can be used as the
+ * start of the prefix (e.g. "hum" suggests "Homo sapiens (Human)"). The index keys are kept in
+ * one sorted array, so a prefix lookup is a binary search for the matching key range followed by
+ * a top-k selection by weight. The results of very short prefixes, which match large ranges, are
+ * precomputed when the index is built.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class SuggestionIndex {
+
+    public static final SuggestionIndex EMPTY = new Builder(0).build();
+
+    private static final int PRECOMPUTED_PREFIX_LENGTH = 2;
+    private static final int PRECOMPUTED_RESULTS = 20;
+    // keys are cut to this length to bound the memory used by long values (e.g. titles), longer prefixes are cut as well
+    private static final int MAX_KEY_LENGTH = 32;
+
+    private final Suggestion[] suggestions;
+    // sorted index keys and the suggestion (position in the suggestions array) each key belongs to
+    private final String[] keys;
+    private final int[] targets;
+    private final Map<String, List<Suggestion>> precomputed;
+
+    private SuggestionIndex(Suggestion[] suggestions, String[] keys, int[] targets) {
+        this.suggestions = suggestions;
+        this.keys = keys;
+        this.targets = targets;
+        Map<String, List<Suggestion>> shortPrefixes = new HashMap<>();
+        for (String key : keys) {
+            for (int length = 1; length <= PRECOMPUTED_PREFIX_LENGTH && length <= key.length(); length++) {
+                String prefix = key.substring(0, length);
+                if (!shortPrefixes.containsKey(prefix)) {
+                    shortPrefixes.put(prefix, search(prefix, PRECOMPUTED_RESULTS));
+                }
+            }
+        }
+        this.precomputed = shortPrefixes;
+    }
+
+    /**
+     * @param prefix the (case insensitive) prefix to complete.
+     * @param limit the maximum number of suggestions to return.
+     * @return the suggestions with a word starting with the prefix, by decreasing weight.
+     */
+    public List<Suggestion> lookup(String prefix, int limit) {
+        String key = truncate(normalise(prefix));
+        if (key.isEmpty() || limit < 1) {
+            return Collections.emptyList();
+        }
+        if (key.length() <= PRECOMPUTED_PREFIX_LENGTH && limit <= PRECOMPUTED_RESULTS) {
+            List<Suggestion> results = precomputed.get(key);
+            if (results == null) {
+                return Collections.emptyList();
+            }
+            return results.size() > limit ? results.subList(0, limit) : results;
+        }
+        return search(key, limit);
+    }
+
+    public int size() {
+        return suggestions.length;
+    }
+
+    private List<Suggestion> search(String key, int limit) {
+        int from = lowerBound(key);
+        int to = lowerBound(key + Character.MAX_VALUE);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        // suggestions are ordered by decreasing weight, so the smallest positions are the best matches
+        BitSet matches = new BitSet(suggestions.length);
+        for (int i = from; i < to; i++) {
+            matches.set(targets[i]);
+        }
+        List<Suggestion> results = new ArrayList<>(Math.min(limit, to - from));
+        for (int i = matches.nextSetBit(0); i >= 0 && results.size() < limit; i = matches.nextSetBit(i + 1)) {
+            results.add(suggestions[i]);
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String normalise(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    /**
+     * A suggested text, the type of value it is (e.g. species) and its weight (e.g. the number of projects).
+     */
+    public static class Suggestion {
+        private final String text;
+        private final String type;
+        private final long weight;
+
+        public Suggestion(String text, String type, long weight) {
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Collects suggestions up to a maximum number of index keys, to bound the memory used by the index.
+     */
+    public static class Builder {
+        private final int maxKeys;
+        private final Map<String, Suggestion> suggestions = new LinkedHashMap<>();
+        private int keyCount = 0;
+
+        public Builder(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        /**
+         * @return false if the suggestion was not added because the index is full.
+         */
+        public boolean add(String text, String type, long weight) {
+            if (text == null || text.trim().isEmpty()) {
+                return true;
+            }
+            String value = text.trim();
+            String id = type + ':' + normalise(value);
+            Suggestion existing = suggestions.get(id);
+            if (existing != null) {
+                suggestions.put(id, new Suggestion(existing.getText(), type, existing.getWeight() + weight));
+                return true;
+            }
+            int words = wordStarts(normalise(value)).size();
+            if (keyCount + words > maxKeys) {
+                return false;
+            }
+            keyCount += words;
+            suggestions.put(id, new Suggestion(value, type, weight));
+            return true;
+        }
+
+        public SuggestionIndex build() {
+            Suggestion[] sorted = suggestions.values().toArray(new Suggestion[suggestions.size()]);
+            Arrays.sort(sorted, new Comparator<Suggestion>() {
+                @Override
+                public int compare(Suggestion a, Suggestion b) {
+                    int byWeight = Long.compare(b.getWeight(), a.getWeight());
+                    return byWeight != 0 ? byWeight : a.getText().compareTo(b.getText());
+                }
+            });
+
+            final String[] keys = new String[keyCount];
+            final int[] targets = new int[keyCount];
+            int size = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                String normalised = normalise(sorted[i].getText());
+                for (int start : wordStarts(normalised)) {
+                    keys[size] = truncate(normalised.substring(start));
+                    targets[size] = i;
+                    size++;
+                }
+            }
+
+            // sort the keys, carrying along the suggestion they point to
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return keys[a].compareTo(keys[b]);
+                }
+            });
+            String[] sortedKeys = new String[size];
+            int[] sortedTargets = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedKeys[i] = keys[order[i]];
+                sortedTargets[i] = targets[order[i]];
+            }
+            return new SuggestionIndex(sorted, sortedKeys, sortedTargets);
+        }
+
+        private static List<Integer> wordStarts(String text) {
+            List<Integer> starts = new ArrayList<>();
+            for (int i = 0; i < text.length(); i++) {
+                if (Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                    starts.add(i);
+                }
+            }
+            return starts;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package uk.ac.ebi.pride.archive.web.service.util;
 
+import javax.servlet.http.HttpServletResponse;
+
 /**
  * @author florian@ebi.ac.uk.
  */
@@ -9,4 +11,14 @@ public class WsUtils {
     public static final int DEFAULT_PAGE = 0;
     public static final int MAX_PAGE_SIZE = 10000;
 
+    /**
+     * Response header carrying the total number of results of a paged /list request,
+     * so clients don't need an extra /count request.
+     */
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    public static void setTotalCount(HttpServletResponse response, long totalCount) {
+        response.setHeader(TOTAL_COUNT_HEADER, Long.toString(totalCount));
+    }
+
 }
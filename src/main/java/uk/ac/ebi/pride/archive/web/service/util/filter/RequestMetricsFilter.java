@@ -0,0 +1,173 @@
+package uk.ac.ebi.pride.archive.web.service.util.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.archive.web.service.metrics.AccessLog;
+import uk.ac.ebi.pride.archive.web.service.metrics.RequestProfile;
+import uk.ac.ebi.pride.archive.web.service.metrics.SlowRequestRecorder;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * Collects the per-request data of the request metrics:
+ *  - keeps track of the status code set on the response, which can not be read from the response
+ *    with the Servlet 2.5 API (see {@link #getStatus(HttpServletRequest)}).
+ *  - binds the profile of the request to the request thread (see {@link RequestProfile}). The time spent
+ *    per stage and backend is logged (debug level) and, if requested with the "X-Debug-Timing" header,
+ *    returned in the "Server-Timing" response header, which is added just before the response body is written.
+ *  - records the slow requests with their profile (see {@link SlowRequestRecorder}).
+ *  - logs every request in the access log (see {@link AccessLog}).
+ *
+ * Note: this has to be the first filter, so the time spent in the security filter chain is included.
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class RequestMetricsFilter implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestMetricsFilter.class);
+
+    private static final String RESPONSE_ATTRIBUTE = RequestMetricsFilter.class.getName() + ".RESPONSE";
+    private static final String DEBUG_TIMING_HEADER = "X-Debug-Timing";
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final SlowRequestRecorder slowRequestRecorder;
+    private final AccessLog accessLog;
+
+    public RequestMetricsFilter(SlowRequestRecorder slowRequestRecorder, AccessLog accessLog) {
+        this.slowRequestRecorder = slowRequestRecorder;
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)
+                || request.getAttribute(RESPONSE_ATTRIBUTE) != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        RequestProfile profile = RequestProfile.start();
+        MetricsResponse metricsResponse = new MetricsResponse((HttpServletResponse) response,
+                httpRequest.getHeader(DEBUG_TIMING_HEADER) != null ? profile : null);
+        request.setAttribute(RESPONSE_ATTRIBUTE, metricsResponse);
+        try {
+            chain.doFilter(request, metricsResponse);
+        } finally {
+            RequestProfile.stop();
+            long micros = (System.nanoTime() - profile.getStartNanos()) / 1000;
+            long durationMillis = micros / 1000;
+            if (logger.isDebugEnabled() && !profile.isEmpty()) {
+                logger.debug("Time of {} {} ({}ms): {}", httpRequest.getMethod(), httpRequest.getRequestURI(),
+                        durationMillis, profile);
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, String[]> parameters = httpRequest.getParameterMap();
+            accessLog.log(httpRequest.getMethod(), httpRequest.getRequestURI(), parameters, profile.getHandler(),
+                    metricsResponse.status, profile.getResultBytes(), micros, httpRequest.getRemoteAddr());
+            if (slowRequestRecorder.isSlow(durationMillis)) {
+                slowRequestRecorder.record(httpRequest.getMethod(), httpRequest.getRequestURI(), parameters,
+                        metricsResponse.status, durationMillis, profile);
+            }
+        }
+    }
+
+    /**
+     * @return the status code set on the response of the request so far, or 0 if the request
+     *         has not been passed through this filter.
+     */
+    public static int getStatus(HttpServletRequest request) {
+        Object response = request.getAttribute(RESPONSE_ATTRIBUTE);
+        return response instanceof MetricsResponse ? ((MetricsResponse) response).status : 0;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {}
+
+    @Override
+    public void destroy() {}
+
+    private static class MetricsResponse extends HttpServletResponseWrapper {
+        private volatile int status = SC_OK;
+        // the profile to return in the Server-Timing header, null if not requested or already added
+        private RequestProfile profile;
+
+        private MetricsResponse(HttpServletResponse response, RequestProfile profile) {
+            super(response);
+            this.profile = profile;
+        }
+
+        @Override
+        public void setStatus(int status) {
+            this.status = status;
+            super.setStatus(status);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setStatus(int status, String message) {
+            this.status = status;
+            super.setStatus(status, message);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            this.status = status;
+            addServerTiming();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            this.status = status;
+            addServerTiming();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            this.status = SC_FOUND;
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        private void addServerTiming() {
+            if (profile != null) {
+                if (!isCommitted() && !profile.isEmpty()) {
+                    setHeader(SERVER_TIMING_HEADER, profile.toServerTiming());
+                }
+                profile = null;
+            }
+        }
+    }
+
+}
@@ -9,6 +9,7 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.pride.archive.web.service.util.WsUtils;
 
 /**
  * @author florian@ebi.ac.uk
@@ -23,6 +24,7 @@ public class SimpleCORSFilter implements Filter {
         response.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
         response.setHeader("Access-Control-Max-Age", "3600");
         response.setHeader("Access-Control-Allow-Headers", "x-requested-with,Content-Type");
+        response.setHeader("Access-Control-Expose-Headers", WsUtils.TOTAL_COUNT_HEADER);
         response.setHeader("X-Clacks-Overhead", "GNU Terry Pratchett");
         chain.doFilter(req, res);
     }
@@ -13,6 +13,7 @@ import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileSource;
 import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileType;
 import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
 import uk.ac.ebi.pride.archive.repo.file.service.FileSummary;
@@ -20,14 +21,15 @@ import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
 import uk.ac.ebi.pride.archive.security.assay.AssaySecureServiceImpl;
 import uk.ac.ebi.pride.archive.security.file.FileSecureServiceImpl;
 import uk.ac.ebi.pride.archive.security.project.ProjectSecureServiceImpl;
+import uk.ac.ebi.pride.archive.web.service.repository.FileCountService;
 
 import java.text.SimpleDateFormat;
-import java.util.Collection;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Locale;
+import java.util.*;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -54,6 +56,10 @@ public class FileControllerFunctionalTest {
     private ProjectSecureServiceImpl projectSecureServiceImpl;
     @Autowired
     private AssaySecureServiceImpl assaySecureServiceImpl;
+    @Autowired
+    private FileCountService fileCountService;
+    @Autowired
+    private FileCountCache fileCountCache;
 
     @Rule
     public TemporaryFolder tempFolder = new TemporaryFolder();
@@ -69,6 +75,9 @@ public class FileControllerFunctionalTest {
     private static final String FILE_NAME = "aFileName";
     private static final String FTP_PATH_FRAGMENT = "ftp://ftp.pride.ebi.ac.uk/pride/data/archive/2010/01/" + PROJECT_ACCESSION + "/" + FILE_NAME;
     private static final String ASPERA_PATH_FRAGMENT = "prd_ascp@fasp.ebi.ac.uk:pride/data/archive/2010/01/" + PROJECT_ACCESSION + "/" + FILE_NAME;
+    private static final String PRIVATE_PROJECT_ACCESSION = "PXTEST2";
+    private static final long PRIVATE_PROJECT_ID = 100002;
+    private static final long PRIVATE_FILE_ID = 300001;
 
     /**
      * Sets up the file summary information, used to mock the file secure service.
@@ -110,7 +119,17 @@ public class FileControllerFunctionalTest {
         assaySummary.setId(ASSAY_ID);
         assaySummary.setAccession(ASSAY_ACCESSION);
 
+        assaySummary.setProjectId(PROJECT_ID);
+
         when(assaySecureServiceImpl.findById(ASSAY_ID)).thenReturn(assaySummary);
+        when(assaySecureServiceImpl.findByAccession(ASSAY_ACCESSION)).thenReturn(assaySummary);
+
+        // mock the file counts (two submitted and one internal file)
+        Map<ProjectFileSource, Long> fileCounts = new EnumMap<>(ProjectFileSource.class);
+        fileCounts.put(ProjectFileSource.SUBMITTED, 2L);
+        fileCounts.put(ProjectFileSource.INTERNAL, 1L);
+        when(fileCountService.countByProjectAccession(PROJECT_ACCESSION)).thenReturn(fileCounts);
+        when(fileCountService.countByAssayAccession(ASSAY_ACCESSION)).thenReturn(fileCounts);
     }
 
     /**
@@ -150,4 +169,154 @@ public class FileControllerFunctionalTest {
                 .andExpect(content().string(containsString(ASPERA_PATH_FRAGMENT)))
                 .andExpect(content().string(containsString("" + FILE_SIZE)));
     }
+
+    /**
+     * Tests that the files of a private project link to the PRIDE Archive web download of each file,
+     * which is identified by the internal ID of the file.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getFilesByPrivateProjectReturnsFileLinks() throws Exception {
+        ProjectSummary privateProject = new ProjectSummary();
+        privateProject.setId(PRIVATE_PROJECT_ID);
+        privateProject.setAccession(PRIVATE_PROJECT_ACCESSION);
+        privateProject.setPublicProject(false);
+        when(projectSecureServiceImpl.findByAccession(PRIVATE_PROJECT_ACCESSION)).thenReturn(privateProject);
+
+        FileSummary fileSummary = new FileSummary();
+        fileSummary.setId(PRIVATE_FILE_ID);
+        fileSummary.setFileName(FILE_NAME);
+        fileSummary.setFileSize(FILE_SIZE);
+        fileSummary.setFileType(ProjectFileType.RESULT);
+        fileSummary.setAssayId(ASSAY_ID);
+        fileSummary.setProjectId(PRIVATE_PROJECT_ID);
+        when(fileSecureServiceImpl.findAllByProjectAccession(PRIVATE_PROJECT_ACCESSION)).thenReturn(Collections.singletonList(fileSummary));
+
+        mockMvc.perform(get("/file/list/project/{projectAccession}", PRIVATE_PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(containsString(FILE_NAME)))
+                .andExpect(content().string(containsString("http://www.ebi.ac.uk/pride/archive/files/" + PRIVATE_FILE_ID)))
+                .andExpect(content().string(not(containsString(FTP_PATH_FRAGMENT))));
+    }
+
+    /**
+     * Tests counting the submitted files of a public project from the /file/count/project/{projectAccession} path.
+     * The count of a public project is only queried once.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void countFilesByProjectReturnsSubmittedFileCount() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/file/count/project/{projectAccession}", PROJECT_ACCESSION))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("2"));
+        }
+        verify(fileCountService, times(1)).countByProjectAccession(PROJECT_ACCESSION);
+    }
+
+    /**
+     * Tests counting the submitted files of an assay from the /file/count/assay/{assayAccession} path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void countFilesByAssayReturnsSubmittedFileCount() throws Exception {
+        mockMvc.perform(get("/file/count/assay/{assayAccession}", ASSAY_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+    }
+
+    /**
+     * Tests that the cached file counts of an assay are dropped together with the counts of its project.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void assayFileCountsAreInvalidatedWithProject() throws Exception {
+        // a separate assay, so its counts are not cached by other tests
+        String assayAccession = "9877";
+        AssaySummary assaySummary = new AssaySummary();
+        assaySummary.setId(ASSAY_ID + 1);
+        assaySummary.setAccession(assayAccession);
+        assaySummary.setProjectId(PROJECT_ID);
+        when(assaySecureServiceImpl.findByAccession(assayAccession)).thenReturn(assaySummary);
+        Map<ProjectFileSource, Long> fileCounts = new EnumMap<>(ProjectFileSource.class);
+        fileCounts.put(ProjectFileSource.SUBMITTED, 3L);
+        when(fileCountService.countByAssayAccession(assayAccession)).thenReturn(fileCounts);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/file/count/assay/{assayAccession}", assayAccession))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("3"));
+        }
+        verify(fileCountService, times(1)).countByAssayAccession(assayAccession);
+
+        fileCountCache.invalidateProject(PROJECT_ACCESSION);
+        mockMvc.perform(get("/file/count/assay/{assayAccession}", assayAccession))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+        verify(fileCountService, times(2)).countByAssayAccession(assayAccession);
+    }
+
+    /**
+     * Tests that the file list of a public project is only built once, until the publication date of the project changes.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void fileListOfPublicProjectIsCached() throws Exception {
+        // a separate project, so the list is not cached by other tests
+        String projectAccession = "PXTEST2";
+        ProjectSummary projectSummary = new ProjectSummary();
+        projectSummary.setId(PROJECT_ID + 1);
+        projectSummary.setAccession(projectAccession);
+        projectSummary.setPublicProject(true);
+        projectSummary.setPublicationDate(new SimpleDateFormat("yyyy-MM-dd", Locale.ENGLISH).parse("2010-01-30"));
+        when(projectSecureServiceImpl.findByAccession(projectAccession)).thenReturn(projectSummary);
+
+        FileSummary fileSummary = new FileSummary();
+        fileSummary.setFileName(FILE_NAME);
+        fileSummary.setFileSize(FILE_SIZE);
+        fileSummary.setFileType(ProjectFileType.RESULT);
+        fileSummary.setProjectId(PROJECT_ID + 1);
+        when(fileSecureServiceImpl.findAllByProjectAccession(projectAccession)).thenReturn(Collections.singletonList(fileSummary));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/file/list/project/{projectAccession}", projectAccession))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("2010/01/" + projectAccession + "/" + FILE_NAME)));
+        }
+        verify(fileSecureServiceImpl, times(1)).findAllByProjectAccession(projectAccession);
+
+        // re-publishing the project changes its download links
+        projectSummary.setPublicationDate(new SimpleDateFormat("yyyy-MM-dd", Locale.ENGLISH).parse("2011-02-15"));
+        mockMvc.perform(get("/file/list/project/{projectAccession}", projectAccession))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("2011/02/" + projectAccession + "/" + FILE_NAME)));
+        verify(fileSecureServiceImpl, times(2)).findAllByProjectAccession(projectAccession);
+    }
+
+    /**
+     * Tests retrieving the download manifest of a project in the default (URL list) and the TSV format.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getDownloadManifestReturnsFileLinks() throws Exception {
+        mockMvc.perform(get("/file/manifest").param("projectAccession", PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(FTP_PATH_FRAGMENT + "\n"));
+
+        mockMvc.perform(get("/file/manifest").param("projectAccession", PROJECT_ACCESSION).param("format", "tsv"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("file_size")))
+                .andExpect(content().string(containsString(PROJECT_ACCESSION + "\t" + ASSAY_ACCESSION + "\t" + FILE_NAME)))
+                .andExpect(content().string(containsString(ASPERA_PATH_FRAGMENT)));
+
+        mockMvc.perform(get("/file/manifest").param("projectAccession", PROJECT_ACCESSION).param("format", "zip"))
+                .andExpect(status().isUnprocessableEntity());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package uk.ac.ebi.pride.archive.web.service.controller.file;
+
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileSource;
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileType;
+import uk.ac.ebi.pride.archive.repo.file.service.FileSummary;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
+import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Measures building the file details (including the private download links) of a large private project,
+ * compared to the previous approach of looking up each file record by name.
+ * Not run as part of the test suite, start it with the main method.
+ */
+public class FileDetailBuilderBenchmark {
+
+    private static final int FILE_COUNT = 50000;
+    private static final int ITERATIONS = 5;
+    private static final long PROJECT_ID = 100001;
+    private static final String PRIVATE_ROOT = "http://www.ebi.ac.uk/pride/archive/files/";
+
+    public static void main(String[] args) throws MalformedURLException {
+        ProjectSummary projectSummary = new ProjectSummary();
+        projectSummary.setId(PROJECT_ID);
+        projectSummary.setAccession("PXD000000");
+        projectSummary.setPublicProject(false);
+
+        Collection<FileSummary> fileSummaries = new ArrayList<>(FILE_COUNT);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            FileSummary fileSummary = new FileSummary();
+            fileSummary.setId((long) i);
+            fileSummary.setProjectId(PROJECT_ID);
+            fileSummary.setFileName((i % 2 == 0 ? "run_" : "peak_") + i + (i % 2 == 0 ? ".raw" : ".mgf"));
+            fileSummary.setFileType(i % 2 == 0 ? ProjectFileType.RAW : ProjectFileType.PEAK);
+            fileSummary.setFileSource(ProjectFileSource.SUBMITTED);
+            fileSummaries.add(fileSummary);
+        }
+
+        // only the private links are built, which do not need any of the injected services
+        FileDetailBuilder builder = new FileDetailBuilder();
+        long checksum = builder.buildFileDetails(projectSummary, fileSummaries).size();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += builder.buildFileDetails(projectSummary, fileSummaries).size();
+        }
+        double indexedMillis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+        System.out.printf("Indexed:   %,.1f ms per project of %,d files (checksum %d)%n", indexedMillis, FILE_COUNT, checksum);
+
+        // previous implementation: a scan of all file records for each file
+        start = System.nanoTime();
+        checksum = buildByNameLookup(fileSummaries).size();
+        double scanMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("Name scan: %,.1f ms per project of %,d files (checksum %d)%n", scanMillis, FILE_COUNT, checksum);
+    }
+
+    private static List<FileDetail> buildByNameLookup(Collection<FileSummary> fileSummaries) throws MalformedURLException {
+        List<FileDetail> fileDetails = ObjectMapper.mapFileSummariesToWSFileDetails(fileSummaries);
+        for (FileDetail fileDetail : fileDetails) {
+            FileSummary requestedFile = null;
+            for (FileSummary file : fileSummaries) {
+                if (fileDetail.getFileName().equalsIgnoreCase(file.getFileName())) {
+                    requestedFile = file;
+                    break;
+                }
+            }
+            fileDetail.setDownloadLink(new URL(PRIVATE_ROOT + requestedFile.getId()));
+        }
+        return fileDetails;
+    }
+}
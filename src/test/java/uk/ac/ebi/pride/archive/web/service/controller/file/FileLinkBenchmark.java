@@ -0,0 +1,102 @@
+package uk.ac.ebi.pride.archive.web.service.controller.file;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileSource;
+import uk.ac.ebi.pride.archive.dataprovider.file.ProjectFileType;
+import uk.ac.ebi.pride.archive.repo.file.service.FileSummary;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.web.service.model.file.FileDetail;
+import uk.ac.ebi.pride.archive.web.service.util.ObjectMapper;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Measures the generation of the FTP and Aspera download links of a public project with 10,000 files,
+ * using the cached link templates compared to resolving URLs for each file.
+ * Not run as part of the test suite, start it with the main method.
+ */
+public class FileLinkBenchmark {
+
+    private static final int FILE_COUNT = 10000;
+    private static final int WARM_UP_ITERATIONS = 20;
+    private static final int ITERATIONS = 100;
+    private static final long PROJECT_ID = 100002;
+    private static final String PROJECT_ACCESSION = "PXD000001";
+
+    // see file.properties
+    private static final String FTP_DOMAIN = "ftp://ftp.pride.ebi.ac.uk";
+    private static final String FTP_PUBLIC_ROOT = "/pride/data/archive/";
+    private static final String ASPERA_LINK_PREFIX = "prd_ascp@fasp.ebi.ac.uk:";
+
+    public static void main(String[] args) throws MalformedURLException {
+        ProjectSummary projectSummary = new ProjectSummary();
+        projectSummary.setId(PROJECT_ID);
+        projectSummary.setAccession(PROJECT_ACCESSION);
+        projectSummary.setPublicProject(true);
+        projectSummary.setPublicationDate(new Date());
+
+        Collection<FileSummary> fileSummaries = new ArrayList<>(FILE_COUNT);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            FileSummary fileSummary = new FileSummary();
+            fileSummary.setId((long) i);
+            fileSummary.setProjectId(PROJECT_ID);
+            fileSummary.setFileName("file_" + i + ".raw");
+            fileSummary.setFileType(ProjectFileType.RAW);
+            fileSummary.setFileSource(i % 10 == 0 ? ProjectFileSource.GENERATED : ProjectFileSource.SUBMITTED);
+            fileSummaries.add(fileSummary);
+        }
+
+        FileDetailBuilder builder = new FileDetailBuilder();
+        ReflectionTestUtils.setField(builder, "ftpDomain", FTP_DOMAIN);
+        ReflectionTestUtils.setField(builder, "ftpPublicRoot", FTP_PUBLIC_ROOT);
+        ReflectionTestUtils.setField(builder, "asperaLinkPrefix", ASPERA_LINK_PREFIX);
+
+        long checksum = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            checksum += builder.buildFileDetails(projectSummary, fileSummaries).size();
+            checksum += buildWithUrlResolution(projectSummary, fileSummaries).size();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += builder.buildFileDetails(projectSummary, fileSummaries).size();
+        }
+        double templateMillis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += buildWithUrlResolution(projectSummary, fileSummaries).size();
+        }
+        double resolutionMillis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+        System.out.printf("Link templates: %,.2f ms per listing of %,d files%n", templateMillis, FILE_COUNT);
+        System.out.printf("URL resolution: %,.2f ms per listing of %,d files (checksum %d)%n", resolutionMillis, FILE_COUNT, checksum);
+    }
+
+    /**
+     * The previous link generation: project URL built per request, two URLs and a substring per file.
+     */
+    private static List<FileDetail> buildWithUrlResolution(ProjectSummary projectSummary, Collection<FileSummary> fileSummaries) throws MalformedURLException {
+        List<FileDetail> fileDetails = ObjectMapper.mapFileSummariesToWSFileDetails(fileSummaries);
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(projectSummary.getPublicationDate());
+        int month = calendar.get(Calendar.MONTH) + 1;
+        String datePath = calendar.get(Calendar.YEAR) + "/" + (month < 10 ? "0" : "") + month;
+        URL projectFtpUrl = new URL(new URL(FTP_DOMAIN), FTP_PUBLIC_ROOT + datePath + "/" + projectSummary.getAccession() + "/");
+        for (FileDetail fileDetail : fileDetails) {
+            URL fileUrl = fileDetail.getFileSource() == ProjectFileSource.GENERATED
+                    ? new URL(projectFtpUrl, "generated/" + fileDetail.getFileName())
+                    : new URL(projectFtpUrl, fileDetail.getFileName());
+            fileDetail.setDownloadLink(fileUrl);
+            String fileUrlPath = fileUrl.getPath();
+            fileDetail.setAsperaDownloadLink(ASPERA_LINK_PREFIX + fileUrlPath.substring(fileUrlPath.indexOf(FTP_PUBLIC_ROOT) + 1));
+        }
+        return fileDetails;
+    }
+}
@@ -1,5 +1,6 @@
 package uk.ac.ebi.pride.archive.web.service.controller.project;
 
+import org.apache.solr.client.solrj.SolrQuery;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,21 +14,33 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import uk.ac.ebi.pride.archive.dataprovider.person.Title;
 import uk.ac.ebi.pride.archive.dataprovider.project.SubmissionType;
+import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
 import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
 import uk.ac.ebi.pride.archive.repo.user.service.UserSummary;
-import uk.ac.ebi.pride.archive.search.service.ProjectSearchService;
 import uk.ac.ebi.pride.archive.search.service.ProjectSearchSummary;
+import uk.ac.ebi.pride.archive.security.assay.AssaySecureServiceImpl;
 import uk.ac.ebi.pride.archive.security.project.ProjectSecureServiceImpl;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectFacetSearchService;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectListSearchService;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectSearchResult;
 import uk.ac.ebi.pride.archive.web.service.util.WsUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -44,13 +57,21 @@ public class ProjectControllerFunctionalTest {
     @Autowired
     private ProjectSecureServiceImpl projectSecureServiceImpl;
     @Autowired
-    private ProjectSearchService projectSearchService;
+    private AssaySecureServiceImpl assaySecureServiceImpl;
+    @Autowired
+    private ProjectListSearchService projectListSearchService;
+    @Autowired
+    private ProjectFacetSearchService projectFacetSearchService;
+    @Autowired
+    private ProjectReadModel projectReadModel;
 
     private MockMvc mockMvc;
 
     private static final String PROJECT_ACCESSION = "PXTEST1";
+    private static final String AGGREGATE_PROJECT_ACCESSION = "PXTEST2";
     private static final String PROJECT_TITLE = "Project test title";
     private static final long NUM_COUNT_RESULTS = 12345;
+    private static final String SPECIES_NAME = "Homo sapiens (Human)";
 
     /**
      * Sets up the project and project summary test information, used to mock the project service.
@@ -75,13 +96,21 @@ public class ProjectControllerFunctionalTest {
         projectSearchSummary.setProjectAccession(PROJECT_ACCESSION);
         projectSearchSummary.setTitle(PROJECT_TITLE);
 
-        Collection<ProjectSearchSummary> projectSearchSummaries = new ArrayList<>();
+        List<ProjectSearchSummary> projectSearchSummaries = new ArrayList<>();
         projectSearchSummaries.add(projectSearchSummary);
 
         // mock the project service
         when(projectSecureServiceImpl.findByAccession(PROJECT_ACCESSION)).thenReturn(projectSummary);
-        when(projectSearchService.searchProjects(anyString(), anyString(), any(String[].class), anyInt(), anyInt(), anyString(), anyString())).thenReturn(projectSearchSummaries);
-        when(projectSearchService.numSearchResults(anyString(), anyString(), any(String[].class))).thenReturn(NUM_COUNT_RESULTS);
+        when(projectListSearchService.searchProjects(any(SolrQuery.class), anyInt(), anyInt(), anyString(), anyString()))
+                .thenReturn(new ProjectSearchResult(projectSearchSummaries, NUM_COUNT_RESULTS));
+        when(projectListSearchService.countProjects(any(SolrQuery.class))).thenReturn(NUM_COUNT_RESULTS);
+
+        // mock the facet search
+        Map<String, Long> speciesCounts = new LinkedHashMap<>();
+        speciesCounts.put(SPECIES_NAME, NUM_COUNT_RESULTS);
+        Map<String, Map<String, Long>> facetCounts = new LinkedHashMap<>();
+        facetCounts.put("species_descendants_names", speciesCounts);
+        when(projectFacetSearchService.getFacetCounts(any(SolrQuery.class), any(String[].class))).thenReturn(facetCounts);
     }
 
     /**
@@ -98,6 +127,150 @@ public class ProjectControllerFunctionalTest {
                 .andExpect(content().string(containsString("john.smith@ebi.ac.uk")));
     }
 
+    /**
+     * Tests that the project level counts are only recomputed when the assays of a project change.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getProjectAggregatesAreCached() throws Exception {
+        ProjectSummary projectSummary = new ProjectSummary();
+        projectSummary.setAccession(AGGREGATE_PROJECT_ACCESSION);
+        projectSummary.setSubmissionType(SubmissionType.COMPLETE);
+        when(projectSecureServiceImpl.findByAccession(AGGREGATE_PROJECT_ACCESSION)).thenReturn(projectSummary);
+        when(assaySecureServiceImpl.findAllByProjectAccession(AGGREGATE_PROJECT_ACCESSION)).thenReturn(assays(10, 20));
+        when(assaySecureServiceImpl.countByProjectAccession(AGGREGATE_PROJECT_ACCESSION)).thenReturn(2L);
+
+        mockMvc.perform(get("/project/{projectAccession}", AGGREGATE_PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"numProteins\":30")));
+
+        // same number of assays: the cached counts are used
+        when(assaySecureServiceImpl.findAllByProjectAccession(AGGREGATE_PROJECT_ACCESSION)).thenReturn(assays(1, 2));
+        mockMvc.perform(get("/project/{projectAccession}", AGGREGATE_PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"numProteins\":30")));
+        // the bundle uses the cached counts as well, unless it returns the assays
+        mockMvc.perform(get("/project/{projectAccession}/bundle?sections=project", AGGREGATE_PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"numProteins\":30")));
+
+        // an assay has been added: the counts are recomputed
+        when(assaySecureServiceImpl.findAllByProjectAccession(AGGREGATE_PROJECT_ACCESSION)).thenReturn(assays(1, 2, 3));
+        when(assaySecureServiceImpl.countByProjectAccession(AGGREGATE_PROJECT_ACCESSION)).thenReturn(3L);
+        mockMvc.perform(get("/project/{projectAccession}", AGGREGATE_PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"numProteins\":6")));
+    }
+
+    /**
+     * Tests that the details of published projects are served from the read model once it has been refreshed.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getProjectFromReadModel() throws Exception {
+        ProjectSummary publishedProject = new ProjectSummary();
+        publishedProject.setAccession(PROJECT_ACCESSION);
+        publishedProject.setTitle("Read model title");
+        publishedProject.setSubmissionType(SubmissionType.COMPLETE);
+        publishedProject.setPublicProject(true);
+        when(projectSecureServiceImpl.findByAccession(PROJECT_ACCESSION)).thenReturn(publishedProject);
+        try {
+            projectReadModel.refresh();
+
+            // later changes only show up after the next refresh
+            ProjectSummary updatedProject = new ProjectSummary();
+            updatedProject.setAccession(PROJECT_ACCESSION);
+            updatedProject.setTitle("Updated title");
+            updatedProject.setSubmissionType(SubmissionType.COMPLETE);
+            updatedProject.setPublicProject(true);
+            when(projectSecureServiceImpl.findByAccession(PROJECT_ACCESSION)).thenReturn(updatedProject);
+
+            mockMvc.perform(get("/project/{projectAccession}", PROJECT_ACCESSION))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("Read model title")));
+        } finally {
+            projectReadModel.evict(PROJECT_ACCESSION);
+        }
+        mockMvc.perform(get("/project/{projectAccession}", PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Updated title")));
+    }
+
+    /**
+     * Tests retrieving the details of several projects from the /project/batch path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getProjectBatch() throws Exception {
+        mockMvc.perform(get("/project/batch?accession={accession}&accession=PXUNKNOWN&accession={accession}", PROJECT_ACCESSION, PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(containsString("{\"accession\":\"" + PROJECT_ACCESSION + "\",\"status\":200")))
+                .andExpect(content().string(containsString("john.smith@ebi.ac.uk")))
+                .andExpect(content().string(containsString("{\"accession\":\"PXUNKNOWN\",\"status\":404")));
+
+        StringBuilder tooManyAccessions = new StringBuilder();
+        for (int i = 0; i <= 100; i++) {
+            tooManyAccessions.append(i == 0 ? "" : ",").append("PXD").append(i);
+        }
+        mockMvc.perform(get("/project/batch?accession={accessions}", tooManyAccessions.toString()))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests retrieving project details, assays and files in one request from the /project/{projectAccession}/bundle path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getProjectBundle() throws Exception {
+        mockMvc.perform(get("/project/{projectAccession}/bundle", PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(containsString("john.smith@ebi.ac.uk")))
+                .andExpect(content().string(containsString("\"assays\":[]")))
+                .andExpect(content().string(containsString("\"files\":[]")));
+
+        mockMvc.perform(get("/project/{projectAccession}/bundle?sections=assays", PROJECT_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString("john.smith@ebi.ac.uk"))))
+                .andExpect(content().string(not(containsString("\"files\""))));
+
+        mockMvc.perform(get("/project/{projectAccession}/bundle?sections=everything", PROJECT_ACCESSION))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    /**
+     * Tests retrieving search term suggestions from the /project/suggest path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getSuggestions() throws Exception {
+        mockMvc.perform(get("/project/suggest?prefix=hum"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/project/suggest?prefix=hum&show=101"))
+                .andExpect(status().isForbidden());
+    }
+
+    private static SolrQuery searchQueryFor(String term) {
+        return argThat(hasToString(containsString(term)));
+    }
+
+    private static Collection<AssaySummary> assays(int... proteinCounts) {
+        Collection<AssaySummary> assays = new ArrayList<>();
+        for (int proteinCount : proteinCounts) {
+            AssaySummary assay = new AssaySummary();
+            assay.setProteinCount(proteinCount);
+            assays.add(assay);
+        }
+        return assays;
+    }
+
     /**
      * Tests retrieving a list of projects from the /project/list path.
      *
@@ -109,7 +282,8 @@ public class ProjectControllerFunctionalTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().string(containsString(PROJECT_ACCESSION)))
-                .andExpect(content().string(containsString(PROJECT_TITLE)));
+                .andExpect(content().string(containsString(PROJECT_TITLE)))
+                .andExpect(header().string(WsUtils.TOTAL_COUNT_HEADER, "" + NUM_COUNT_RESULTS));
     }
 
     /**
@@ -125,6 +299,53 @@ public class ProjectControllerFunctionalTest {
                 .andExpect(content().string(containsString("" + NUM_COUNT_RESULTS)));
     }
 
+    /**
+     * Tests that equivalent searches (filter values in different order or repeated) are answered from the
+     * result cache, so the search service is only queried once.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void equivalentProjectSearchesAreCached() throws Exception {
+        String listTotal = mockMvc.perform(get("/project/list?query=cachetest&speciesFilter=9606&speciesFilter=10090"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(PROJECT_ACCESSION)))
+                .andReturn().getResponse().getHeader(WsUtils.TOTAL_COUNT_HEADER);
+        mockMvc.perform(get("/project/list?query= cachetest &speciesFilter=10090&speciesFilter=9606&speciesFilter=9606"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(PROJECT_ACCESSION)))
+                .andExpect(header().string(WsUtils.TOTAL_COUNT_HEADER, listTotal));
+        verify(projectListSearchService, times(1)).searchProjects(searchQueryFor("cachetest"), anyInt(), anyInt(), anyString(), anyString());
+
+        // the list total and the count of the same search agree
+        mockMvc.perform(get("/project/count?query=cachetest&speciesFilter=10090,9606"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(listTotal));
+
+        mockMvc.perform(get("/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(containsString("project-list")))
+                .andExpect(content().string(containsString("hitRate")));
+    }
+
+    /**
+     * Tests retrieving the facet counts of a project search from the /project/facets path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getProjectFacets() throws Exception {
+        mockMvc.perform(get("/project/facets?query=facettest&tissueFilter=brain"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(containsString("\"species\":{\"" + SPECIES_NAME + "\":" + NUM_COUNT_RESULTS + "}")))
+                .andExpect(content().string(containsString("\"projectTag\":{}")));
+        mockMvc.perform(get("/project/facets?query=facettest&tissueFilter=brain"))
+                .andExpect(status().isOk());
+        verify(projectFacetSearchService, times(1)).getFacetCounts(searchQueryFor("facettest"), any(String[].class));
+    }
+
     /**
      * Tests retrieving a list of projects using pagination from the /project/list path.
      *
@@ -0,0 +1,68 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.SolrParams;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectFacetSearchService;
+import uk.ac.ebi.pride.archive.web.service.search.ProjectListSearchService;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the project list and the facet counts of a search are retrieved with the same search
+ * parameters, so the facet counts match the listed projects.
+ */
+public class ProjectSearchParametersTest {
+
+    private static final String[] SHARED_PARAMETERS = {"q", "defType", "qf", "fq"};
+
+    @Test
+    public void listAndFacetsShareSearchParameters() throws Exception {
+        ProjectSearchQuery query = new ProjectSearchQuery("stress",
+                new String[]{"phosphorylation"}, new String[]{"9606"}, new String[]{"liver"}, null,
+                new String[]{"heat"}, null, null, null, new String[]{"Biomedical"});
+
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(new SolrDocumentList());
+        SolrServer projectServer = mock(SolrServer.class);
+        when(projectServer.query(any(SolrParams.class))).thenReturn(response);
+
+        new ProjectListSearchService(projectServer).searchProjects(
+                ProjectSearchCache.buildSearchQuery(query), 20, 10, "publication_date", "desc");
+        new ProjectFacetSearchService(projectServer).getFacetCounts(
+                ProjectSearchCache.buildSearchQuery(query), new String[]{"species_descendants_names"});
+
+        ArgumentCaptor<SolrParams> requests = ArgumentCaptor.forClass(SolrParams.class);
+        verify(projectServer, times(2)).query(requests.capture());
+        List<SolrParams> params = requests.getAllValues();
+        SolrParams listParams = params.get(0);
+        SolrParams facetParams = params.get(1);
+
+        for (String parameter : SHARED_PARAMETERS) {
+            assertNotNull(parameter, listParams.getParams(parameter));
+            assertArrayEquals(parameter, listParams.getParams(parameter), facetParams.getParams(parameter));
+        }
+        assertEquals("edismax", listParams.get("defType"));
+        assertEquals(ProjectController.SolrQueryBuilder.buildQueryTerm("stress"), listParams.get("q"));
+        assertEquals(ProjectController.SolrQueryBuilder.buildQueryFields(), listParams.get("qf"));
+        assertArrayEquals(ProjectSearchCache.buildQueryFilters(query), listParams.getParams("fq"));
+
+        // paging and faceting are specific to the request
+        assertEquals("20", listParams.get("start"));
+        assertEquals("10", listParams.get("rows"));
+        assertEquals("0", facetParams.get("rows"));
+        assertEquals("true", facetParams.get("facet"));
+    }
+}
@@ -0,0 +1,38 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the cost of building the query fields and filter queries of a project search.
+ * Not run as part of the test suite, start it with the main method.
+ */
+public class SolrQueryBuilderBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 200000;
+    private static final int ITERATIONS = 1000000;
+
+    private static final List<String> SPECIES = Arrays.asList("Mus musculus", "Homo sapiens", "Homo sapiens");
+    private static final List<String> TISSUES = Arrays.asList("liver", "brain");
+    private static final List<String> PTMS = Arrays.asList("phosphorylated residue");
+    private static final List<String> TITLES = Arrays.asList("proteome");
+
+    public static void main(String[] args) {
+        long checksum = run(WARM_UP_ITERATIONS);
+        long start = System.nanoTime();
+        checksum += run(ITERATIONS);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Query build: %.1f ns per search (checksum %d)%n", (double) elapsed / ITERATIONS, checksum);
+    }
+
+    private static long run(int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            String queryFields = ProjectController.SolrQueryBuilder.buildQueryFields();
+            String[] filters = ProjectController.SolrQueryBuilder.buildQueryFilters(
+                    PTMS, SPECIES, TISSUES, null, TITLES, null, null, null, null);
+            checksum += queryFields.length() + filters.length;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.ebi.pride.archive.web.service.controller.project;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the Solr query builder produces stable queries for equivalent searches.
+ */
+public class SolrQueryBuilderTest {
+
+    private static final List<String> NONE = Collections.emptyList();
+
+    @Test
+    public void queryFieldsArePrecomputed() {
+        String queryFields = ProjectController.SolrQueryBuilder.buildQueryFields();
+        assertSame(queryFields, ProjectController.SolrQueryBuilder.buildQueryFields());
+        assertTrue(queryFields.startsWith("project_title^1 project_description^1 id^3 "));
+        assertTrue(queryFields.endsWith(" protein_identifications^25 peptide_sequences^25"));
+        assertEquals(31, queryFields.split(" ").length);
+    }
+
+    @Test
+    public void equivalentFiltersProduceIdenticalQueries() {
+        String[] filters = filters(Arrays.asList("Mus musculus", "Homo sapiens"), Arrays.asList("liver"), Arrays.asList("Biomedical"));
+        String[] equivalentFilters = filters(Arrays.asList(" Homo sapiens", "Mus musculus ", "Homo sapiens", ""), Arrays.asList("liver", "liver"), Arrays.asList("Biomedical"));
+
+        assertArrayEquals(filters, equivalentFilters);
+        assertArrayEquals(new String[]{
+                "species_as_text:\"Homo sapiens\" OR species_accessions:\"Homo sapiens\" OR species_descendants_names:\"Homo sapiens\"",
+                "species_as_text:\"Mus musculus\" OR species_accessions:\"Mus musculus\" OR species_descendants_names:\"Mus musculus\"",
+                "tissue_as_text:\"liver\" OR tissue_accessions:\"liver\" OR tissue_descendants_names:\"liver\"",
+                "project_tags:\"Biomedical\""
+        }, filters);
+    }
+
+    @Test
+    public void titleFiltersBypassFilterCache() {
+        String[] filters = ProjectController.SolrQueryBuilder.buildQueryFilters(
+                null, null, null, null, Arrays.asList("my \"special\" title"), null, null, null, null);
+        assertArrayEquals(new String[]{"{!cache=false}project_title:\"my \\\"special\\\" title\""}, filters);
+    }
+
+    private static String[] filters(List<String> species, List<String> tissues, List<String> projectTags) {
+        return ProjectController.SolrQueryBuilder.buildQueryFilters(
+                NONE, species, tissues, null, NONE, null, NONE, null, projectTags);
+    }
+}
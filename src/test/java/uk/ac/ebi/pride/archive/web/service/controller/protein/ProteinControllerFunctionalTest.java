@@ -14,6 +14,10 @@ import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
+import uk.ac.ebi.pride.archive.repo.assay.service.AssaySummary;
+import uk.ac.ebi.pride.archive.repo.project.service.ProjectSummary;
+import uk.ac.ebi.pride.archive.security.assay.AssaySecureServiceImpl;
+import uk.ac.ebi.pride.archive.security.project.ProjectSecureServiceImpl;
 import uk.ac.ebi.pride.archive.web.service.util.WsUtils;
 import uk.ac.ebi.pride.proteinidentificationindex.mongo.search.model.MongoProteinIdentification;
 import uk.ac.ebi.pride.proteinidentificationindex.mongo.search.service.MongoProteinIdentificationIndexService;
@@ -23,9 +27,11 @@ import uk.ac.ebi.pride.proteinidentificationindex.search.service.ProteinIdentifi
 import java.util.*;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -46,20 +52,26 @@ public class ProteinControllerFunctionalTest {
     private ProteinIdentificationSearchService proteinIdentificationSearchService;
     @Autowired
     private MongoProteinIdentificationIndexService mongoProteinIdentificationIndexService;
+    @Autowired
+    private ProjectSecureServiceImpl projectSecureServiceImpl;
+    @Autowired
+    private AssaySecureServiceImpl assaySecureServiceImpl;
 
     private MockMvc mockMvc;
 
     private static final String PROJECT_ACCESSION = "PXTEST1";
     private static final String ASSAY_ACCESSION = "1234";
     private static final String PROTEIN_ACCESSION = "P12345";
+    private static final String FREQUENT_PROTEIN_ACCESSION = "P99999";
     private static final long NUM_COUNT_RESULTS = 12345L;
     private static final String ID = "PXTEST1_1234";
+    private static final long PROJECT_ID = 100001;
 
     /**
      * Sets up the protein test information, used to mock the protein identification service.
      */
     @Before
-    public void setUp() {
+    public void setUp() throws Exception {
         this.mockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
 
         // Create fake Protein
@@ -84,6 +96,7 @@ public class ProteinControllerFunctionalTest {
 
         when(proteinIdentificationSearchService.countByProjectAccession(PROJECT_ACCESSION)).thenReturn(NUM_COUNT_RESULTS);
         when(proteinIdentificationSearchService.countByProjectAccessionAndAccession(PROJECT_ACCESSION, PROTEIN_ACCESSION)).thenReturn(NUM_COUNT_RESULTS);
+        when(proteinIdentificationSearchService.countByProjectAccessionAndAccession(PROJECT_ACCESSION, FREQUENT_PROTEIN_ACCESSION)).thenReturn(1000000L);
         when(proteinIdentificationSearchService.countByAssayAccession(ASSAY_ACCESSION)).thenReturn(NUM_COUNT_RESULTS);
         when(proteinIdentificationSearchService.findByProjectAccessionAndAccession(PROJECT_ACCESSION, PROTEIN_ACCESSION)).thenReturn(list);
 
@@ -98,6 +111,18 @@ public class ProteinControllerFunctionalTest {
         mongoProteinIdentification.setProjectAccession(PROJECT_ACCESSION);
         mongoProteinIdentification.setAssayAccession(ASSAY_ACCESSION);
         mongoProteinIdentificationIndexService.save(mongoProteinIdentification);
+
+        // mock the project and assay services (used to check access to the compared datasets)
+        ProjectSummary projectSummary = new ProjectSummary();
+        projectSummary.setId(PROJECT_ID);
+        projectSummary.setAccession(PROJECT_ACCESSION);
+        projectSummary.setPublicProject(true);
+        AssaySummary assaySummary = new AssaySummary();
+        assaySummary.setAccession(ASSAY_ACCESSION);
+        assaySummary.setProjectId(PROJECT_ID);
+        when(projectSecureServiceImpl.findByAccession(PROJECT_ACCESSION)).thenReturn(projectSummary);
+        when(projectSecureServiceImpl.findById(PROJECT_ID)).thenReturn(projectSummary);
+        when(assaySecureServiceImpl.findByAccession(ASSAY_ACCESSION)).thenReturn(assaySummary);
     }
 
     /**
@@ -114,7 +139,8 @@ public class ProteinControllerFunctionalTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().string(containsString(PROJECT_ACCESSION)))
                 .andExpect(content().string(containsString(ASSAY_ACCESSION)))
-                .andExpect(content().string(containsString(PROTEIN_ACCESSION)));
+                .andExpect(content().string(containsString(PROTEIN_ACCESSION)))
+                .andExpect(header().string(WsUtils.TOTAL_COUNT_HEADER, "1"));
 
         // test with custom paging configuration
         mockMvc.perform(get("/protein/list/project/{projectAccession}?show=2&page=0", PROJECT_ACCESSION))
@@ -234,6 +260,82 @@ public class ProteinControllerFunctionalTest {
                 .andExpect(content().string(containsString(PROTEIN_ACCESSION)));
     }
 
+    /**
+     * Tests paging and the page size limit for proteins requested by project accession and protein accession
+     * from the /protein/list/project/{projectAccession}/protein/{proteinAccession} path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void getProteinsByProjectAndAccessionPaged() throws Exception {
+        mockMvc.perform(get("/protein/list/project/{projectAccession}/protein/{proteinAccession}?show=1&page=0", PROJECT_ACCESSION, PROTEIN_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(containsString(PROTEIN_ACCESSION)));
+        // there is only one matching record, so the second page is empty
+        mockMvc.perform(get("/protein/list/project/{projectAccession}/protein/{proteinAccession}?show=1&page=1", PROJECT_ACCESSION, PROTEIN_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString(PROTEIN_ACCESSION))));
+        mockMvc.perform(get("/protein/list/project/{projectAccession}/protein/{proteinAccession}?show={pageSize}&page=0",
+                PROJECT_ACCESSION, PROTEIN_ACCESSION, (WsUtils.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests streaming all proteins by providing project accession and protein accession
+     * from the /protein/stream/project/{projectAccession}/protein/{proteinAccession} path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void streamProteinsByProjectAndAccession() throws Exception {
+        mockMvc.perform(get("/protein/stream/project/{projectAccession}/protein/{proteinAccession}", PROJECT_ACCESSION, PROTEIN_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(containsString("\"list\"")))
+                .andExpect(content().string(containsString(PROJECT_ACCESSION)))
+                .andExpect(content().string(containsString(PROTEIN_ACCESSION)));
+    }
+
+    /**
+     * Tests that protein accessions matching more protein identifications than can be loaded at once
+     * are refused, both from the paged and the streaming path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void tooManyProteinsByProjectAndAccession() throws Exception {
+        mockMvc.perform(get("/protein/list/project/{projectAccession}/protein/{proteinAccession}", PROJECT_ACCESSION, FREQUENT_PROTEIN_ACCESSION))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/protein/stream/project/{projectAccession}/protein/{proteinAccession}", PROJECT_ACCESSION, FREQUENT_PROTEIN_ACCESSION))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests the set operations on the protein accessions of a project and an assay
+     * from the /protein/compare path.
+     *
+     * @throws Exception Failed to retrieve results from the mocked service.
+     */
+    @Test
+    public void compareProteinAccessions() throws Exception {
+        mockMvc.perform(get("/protein/compare?project={projectAccession}&assay={assayAccession}&operation=union", PROJECT_ACCESSION, ASSAY_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.TEXT_PLAIN_VALUE))
+                .andExpect(content().string(containsString("22134")))
+                .andExpect(content().string(containsString("PXD000001")));
+        mockMvc.perform(get("/protein/compare?project={projectAccession}&assay={assayAccession}", PROJECT_ACCESSION, ASSAY_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString("22134"))))
+                .andExpect(content().string(not(containsString("PXD000001"))));
+        mockMvc.perform(get("/protein/compare?project={projectAccession}&assay={assayAccession}&operation=difference", PROJECT_ACCESSION, ASSAY_ACCESSION))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString("22134"))))
+                .andExpect(content().string(containsString("PXD000001")));
+        mockMvc.perform(get("/protein/compare?project={projectAccession}&operation=xor", PROJECT_ACCESSION))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     /**
      * Tests retrieving list of proteins for assay by providing assay accession
      * from the /protein/list/assay/{assayAccession}.acc path.
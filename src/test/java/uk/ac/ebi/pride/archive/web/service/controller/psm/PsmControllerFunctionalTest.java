@@ -28,6 +28,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -108,7 +109,8 @@ public class PsmControllerFunctionalTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().string(containsString(PROJECT_ACCESSION)))
                 .andExpect(content().string(containsString(ASSAY_ACCESSION)))
-                .andExpect(content().string(containsString(PROTEIN_ACCESSION)));
+                .andExpect(content().string(containsString(PROTEIN_ACCESSION)))
+                .andExpect(header().string(WsUtils.TOTAL_COUNT_HEADER, "1"));
 
         // test with custom paging configuration
         mockMvc.perform(get("/peptide/list/project/{projectAccession}?show=2&page=0", PROJECT_ACCESSION))
@@ -0,0 +1,127 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the throughput of the request threads when logging every request with an info line written
+ * synchronously to a log file (as the controllers used to) and with the access log (see {@link AccessLog}).
+ *
+ * This is not a unit test and is not run by the build, run it with:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=uk.ac.ebi.pride.archive.web.service.metrics.AccessLogBenchmark
+ * </pre>
+ * The optional arguments are the number of threads (default 16) and the seconds per run (default 10).
+ *
+ * @author florian@ebi.ac.uk
+ * @since 1.0.19
+ */
+public class AccessLogBenchmark {
+
+    private static final String PATTERN = "%.-1level|%d{HH:mm:ss.SSS}|%-40.40logger{0}|%msg%n";
+    private static final Map<String, String[]> PARAMETERS = Collections.singletonMap("show", new String[]{"100"});
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        File directory = File.createTempFile("access-log-benchmark", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IllegalStateException("Could not create directory " + directory);
+        }
+
+        final Logger infoLogger = fileLogger("benchmark.info", new File(directory, "info.log"));
+        fileLogger("uk.ac.ebi.pride.archive.web.service.access", new File(directory, "access.log"));
+        final AccessLog accessLog = new AccessLog(8192);
+
+        Task synchronousInfo = new Task() {
+            @Override
+            public void run(String projectAccession) {
+                infoLogger.info("Peptides for project " + projectAccession + " requested");
+            }
+        };
+        Task asynchronousAccessLog = new Task() {
+            @Override
+            public void run(String projectAccession) {
+                infoLogger.debug("Peptides for project {} requested", projectAccession);
+                accessLog.log("GET", "/peptide/list/project/" + projectAccession, PARAMETERS,
+                        "PsmController.getPsmsByProject", 200, 52000, 12345, "10.0.0.1");
+            }
+        };
+
+        // first runs to warm up
+        measure(synchronousInfo, threads, 2);
+        measure(asynchronousAccessLog, threads, 2);
+
+        double synchronous = measure(synchronousInfo, threads, seconds);
+        long droppedBefore = accessLog.getDroppedCount();
+        double asynchronous = measure(asynchronousAccessLog, threads, seconds);
+        accessLog.close();
+
+        System.out.printf("%d threads, %d seconds per run, logs in %s%n", threads, seconds, directory);
+        System.out.printf("synchronous info logging: %,.0f requests/s%n", synchronous);
+        // dropping an entry is cheaper than queueing it, so the throughput is only comparable with few drops
+        long dropped = accessLog.getDroppedCount() - droppedBefore;
+        System.out.printf("asynchronous access log:  %,.0f requests/s (%,d entries written, %,d dropped)%n", asynchronous,
+                Math.round(asynchronous * seconds) - dropped, dropped);
+    }
+
+    private static Logger fileLogger(String name, File file) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.getPath());
+        appender.setEncoder(encoder);
+        appender.start();
+        ch.qos.logback.classic.Logger logger = context.getLogger(name);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    /**
+     * @return the number of tasks run per second, over all threads.
+     */
+    private static double measure(final Task task, int threads, int seconds) throws InterruptedException {
+        final LongAdder count = new LongAdder();
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int runs = 0;
+                    while (System.nanoTime() < end) {
+                        task.run("PXD" + String.format("%06d", runs % 1000));
+                        runs++;
+                    }
+                    count.add(runs);
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        return count.sum() / (double) seconds;
+    }
+
+    private interface Task {
+        void run(String projectAccession);
+    }
+
+}
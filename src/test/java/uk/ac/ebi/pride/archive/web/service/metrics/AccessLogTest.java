@@ -0,0 +1,61 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the ring buffer and the line format of the access log, without the background writer.
+ */
+public class AccessLogTest {
+
+    private static final Map<String, String[]> NO_PARAMETERS = Collections.emptyMap();
+
+    @Test
+    public void entriesAreDroppedIfTheBufferIsFull() {
+        AccessLog accessLog = new AccessLog(4, false);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(accessLog.log("GET", "/project/" + i, NO_PARAMETERS, null, 200, -1, 1000, "127.0.0.1"));
+        }
+        assertFalse(accessLog.log("GET", "/project/4", NO_PARAMETERS, null, 200, -1, 1000, "127.0.0.1"));
+        assertEquals(1, accessLog.getDroppedCount());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(format(accessLog.poll()).contains("uri=\"/project/" + i + "\""));
+        }
+        assertNull(accessLog.poll());
+
+        // the slots can be reused once they have been read
+        assertTrue(accessLog.log("GET", "/project/5", NO_PARAMETERS, null, 200, -1, 1000, "127.0.0.1"));
+        assertTrue(format(accessLog.poll()).contains("uri=\"/project/5\""));
+    }
+
+    @Test
+    public void entriesAreFormattedAsKeyValuePairs() {
+        AccessLog accessLog = new AccessLog(2, false);
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        parameters.put("show", new String[]{"10"});
+        parameters.put("q", new String[]{"a \"b\""});
+        accessLog.log("GET", "/project/list", parameters, "ProjectController.simpleSearchProjects", 200, 5120, 12345,
+                "10.0.0.1");
+
+        String line = format(accessLog.poll());
+        assertTrue(line, line.endsWith(" method=GET uri=\"/project/list\" handler=ProjectController.simpleSearchProjects"
+                + " status=200 bytes=5120 millis=12.3 client=10.0.0.1 params=\"show=10&q=a \\\"b\\\"\""));
+    }
+
+    private static String format(AccessLog.Entry entry) {
+        StringBuilder line = new StringBuilder();
+        entry.appendTo(line, new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"));
+        return line.toString();
+    }
+
+}
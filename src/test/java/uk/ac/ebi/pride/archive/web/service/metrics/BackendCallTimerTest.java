@@ -0,0 +1,58 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the recording of backend calls in the metrics and in the profile of the current request.
+ */
+public class BackendCallTimerTest {
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final BackendCallTimer oracleTimer = new BackendCallTimer("oracle", metricsRegistry);
+    private final BackendCallTimer solrTimer = new BackendCallTimer("solr", metricsRegistry);
+
+    @After
+    public void unbindProfile() {
+        RequestProfile.stop();
+    }
+
+    @Test
+    public void callsAreRecordedByBackendAndOperation() {
+        oracleTimer.stop("ProjectService.findById", oracleTimer.start(), false);
+        oracleTimer.stop("ProjectService.findById", oracleTimer.start(), true);
+        solrTimer.stop("project/select", solrTimer.start(), false);
+
+        Map<MetricsRegistry.BackendOperation, BackendCallMetrics> calls = metricsRegistry.getBackendCalls();
+        assertEquals(2, calls.size());
+        BackendCallMetrics findById = calls.values().iterator().next();
+        assertEquals(2, findById.getCount());
+        assertEquals(1, findById.getErrorCount());
+    }
+
+    @Test
+    public void nestedCallsAreOnlyAddedOnceToTheRequestProfile() {
+        RequestProfile profile = RequestProfile.start();
+        long outer = oracleTimer.start();
+        solrTimer.stop("project/select", solrTimer.start(), false);
+        oracleTimer.stop("ProjectService.findById", outer, false);
+
+        assertTrue(profile.toString().startsWith("oracle "));
+        assertTrue(profile.toString().endsWith("(1 calls)"));
+        // the nested call is still recorded in the metrics
+        assertEquals(2, metricsRegistry.getBackendCalls().size());
+    }
+
+    @Test
+    public void callsOutsideOfRequestsAreOnlyRecordedInTheMetrics() {
+        solrTimer.stop("project/admin/ping", solrTimer.start(), false);
+        assertEquals(null, RequestProfile.current());
+        assertEquals(1, metricsRegistry.getBackendCalls().size());
+    }
+
+}
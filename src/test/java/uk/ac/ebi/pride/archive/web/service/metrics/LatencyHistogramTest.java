@@ -0,0 +1,51 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the bucketing and the quantile computation of the latency histogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void everyValueFallsIntoABucketCoveringIt() {
+        for (long value = 0; value < 1000000; value += 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long highest = LatencyHistogram.highestValueOfBucket(index);
+            assertTrue("value " + value, highest >= value);
+            // relative error of at most 1/16
+            assertTrue("value " + value, highest - value <= value / 16);
+            if (index > 0) {
+                assertTrue("value " + value, LatencyHistogram.highestValueOfBucket(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void hugeValuesAreCountedInTheHighestBucket() {
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void quantilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10000; micros++) {
+            histogram.record(micros);
+        }
+        long[] bucketCounts = LatencyHistogram.newBucketCounts();
+        histogram.addCountsTo(bucketCounts);
+
+        assertEquals(10000, histogram.getCount());
+        assertWithin(5000, LatencyHistogram.getValueAtQuantile(bucketCounts, 0.5));
+        assertWithin(9900, LatencyHistogram.getValueAtQuantile(bucketCounts, 0.99));
+        assertWithin(10000, LatencyHistogram.getValueAtQuantile(bucketCounts, 1.0));
+        assertEquals(0, LatencyHistogram.getValueAtQuantile(LatencyHistogram.newBucketCounts(), 0.5));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual, actual >= expected && actual - expected <= expected / 16);
+    }
+}
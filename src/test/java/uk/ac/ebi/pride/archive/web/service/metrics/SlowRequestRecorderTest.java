@@ -0,0 +1,51 @@
+package uk.ac.ebi.pride.archive.web.service.metrics;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the threshold and the ring buffer of the slow request recorder.
+ */
+public class SlowRequestRecorderTest {
+
+    private final SlowRequestRecorder recorder = new SlowRequestRecorder(100, 3);
+
+    @Test
+    public void onlySlowRequestsAreRecorded() {
+        recorder.record("GET", "/project/PXD000001", Collections.<String, String[]>emptyMap(), 200, 99, new RequestProfile());
+        assertTrue(recorder.getRecentSlowRequests().isEmpty());
+
+        RequestProfile profile = new RequestProfile();
+        profile.setHandler("ProjectController.getProjectSummary");
+        profile.addStage(RequestProfile.MAPPING, 3000);
+        profile.addBackendCall("oracle", 95000);
+        recorder.record("GET", "/project/PXD000001", Collections.singletonMap("show", new String[]{"10"}), 200, 100, profile);
+
+        List<SlowRequest> requests = recorder.getRecentSlowRequests();
+        assertEquals(1, requests.size());
+        SlowRequest request = requests.get(0);
+        assertEquals("ProjectController.getProjectSummary", request.getHandler());
+        assertEquals("10", request.getParameters().get("show"));
+        assertEquals(Long.valueOf(3), request.getStageMillis().get(RequestProfile.MAPPING));
+        assertEquals(Long.valueOf(95), request.getBackendMillis().get("oracle"));
+    }
+
+    @Test
+    public void theOldestRequestsAreOverwritten() {
+        for (int i = 0; i < 5; i++) {
+            recorder.record("GET", "/psm/list/" + i, Collections.<String, String[]>emptyMap(), 200, 100 + i, new RequestProfile());
+        }
+        List<SlowRequest> requests = recorder.getRecentSlowRequests();
+        assertEquals(3, requests.size());
+        assertEquals(5, recorder.getRecordedCount());
+        for (SlowRequest request : requests) {
+            assertTrue(request.getDurationMillis() >= 102);
+        }
+    }
+
+}
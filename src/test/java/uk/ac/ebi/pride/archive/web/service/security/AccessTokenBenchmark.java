@@ -0,0 +1,53 @@
+package uk.ac.ebi.pride.archive.web.service.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Compares the per request authentication cost of HTTP Basic (BCrypt password check, without the
+ * user lookup) with the validation of an access token.
+ * Not run as part of the test suite, start it with the main method.
+ */
+public class AccessTokenBenchmark {
+
+    private static final int BCRYPT_ITERATIONS = 50;
+    private static final int TOKEN_WARM_UP_ITERATIONS = 100000;
+    private static final int TOKEN_ITERATIONS = 500000;
+
+    private static final String PASSWORD = "a reasonably long password";
+
+    public static void main(String[] args) {
+        // same encoder (and default strength) as configured in app-context-security.xml
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+        String hash = passwordEncoder.encode(PASSWORD);
+        passwordEncoder.matches(PASSWORD, hash);
+        long start = System.nanoTime();
+        int matches = 0;
+        for (int i = 0; i < BCRYPT_ITERATIONS; i++) {
+            matches += passwordEncoder.matches(PASSWORD, hash) ? 1 : 0;
+        }
+        double bcryptNanos = (double) (System.nanoTime() - start) / BCRYPT_ITERATIONS;
+        System.out.printf("BCrypt check:     %,.0f ns per request (%d matches)%n", bcryptNanos, matches);
+
+        AccessTokenService tokenService = new AccessTokenService("", true, 900);
+        Authentication authentication = new UsernamePasswordAuthenticationToken("john.smith@ebi.ac.uk", null,
+                AuthorityUtils.createAuthorityList("SUBMITTER"));
+        String token = tokenService.createToken(authentication);
+        long checksum = run(tokenService, token, TOKEN_WARM_UP_ITERATIONS);
+        start = System.nanoTime();
+        checksum += run(tokenService, token, TOKEN_ITERATIONS);
+        double tokenNanos = (double) (System.nanoTime() - start) / TOKEN_ITERATIONS;
+        System.out.printf("Token validation: %,.0f ns per request (checksum %d)%n", tokenNanos, checksum);
+        System.out.printf("Speed up:         %,.0fx%n", bcryptNanos / tokenNanos);
+    }
+
+    private static long run(AccessTokenService tokenService, String token, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += tokenService.parseToken(token).getAuthorities().size();
+        }
+        return checksum;
+    }
+}
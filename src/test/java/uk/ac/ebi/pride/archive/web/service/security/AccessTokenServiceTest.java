@@ -0,0 +1,81 @@
+package uk.ac.ebi.pride.archive.web.service.security;
+
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests issuing and validating access tokens.
+ */
+public class AccessTokenServiceTest {
+
+    private static final String SIGNING_KEY = "0123456789abcdef0123456789abcdef";
+    private static final String USER = "john.smith@ebi.ac.uk";
+
+    private static final Authentication AUTHENTICATION = new UsernamePasswordAuthenticationToken(USER, null,
+            AuthorityUtils.createAuthorityList("SUBMITTER", "REVIEWER"));
+
+    @Test
+    public void validTokenResultsInAuthentication() {
+        AccessTokenService service = new AccessTokenService(SIGNING_KEY, 60);
+
+        Authentication authentication = service.parseToken(service.createToken(AUTHENTICATION));
+
+        assertNotNull(authentication);
+        assertTrue(authentication.isAuthenticated());
+        assertEquals(USER, authentication.getName());
+        assertEquals(AuthorityUtils.authorityListToSet(AUTHENTICATION.getAuthorities()),
+                AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
+    }
+
+    @Test
+    public void tokenOfOtherKeyIsRejected() {
+        String token = new AccessTokenService(SIGNING_KEY, 60).createToken(AUTHENTICATION);
+
+        assertNull(new AccessTokenService(SIGNING_KEY.replace('0', 'x'), 60).parseToken(token));
+        assertNull(new AccessTokenService("", true, 60).parseToken(token));
+    }
+
+    @Test
+    public void modifiedTokenIsRejected() {
+        AccessTokenService service = new AccessTokenService(SIGNING_KEY, 60);
+        String token = service.createToken(AUTHENTICATION);
+        String forged = service.createToken(new UsernamePasswordAuthenticationToken(USER, null,
+                AuthorityUtils.createAuthorityList("ADMINISTRATOR")));
+
+        // payload of the forged token with the signature of the original one
+        String tampered = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertNull(service.parseToken(tampered));
+        assertNull(service.parseToken("not a token"));
+        assertNull(service.parseToken(""));
+    }
+
+    @Test
+    public void expiredTokenIsRejected() {
+        AccessTokenService service = new AccessTokenService(SIGNING_KEY, -1);
+
+        assertNull(service.parseToken(service.createToken(AUTHENTICATION)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortSigningKeyIsRefused() {
+        new AccessTokenService("too short", 60);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingSigningKeyIsRefused() {
+        new AccessTokenService("", 60);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unresolvedSigningKeyIsRefused() {
+        new AccessTokenService("${archive.ws.token.signing.key}", 60);
+    }
+}
@@ -0,0 +1,90 @@
+package uk.ac.ebi.pride.archive.web.service.security;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that successful authentications are remembered and failed ones are not.
+ */
+public class CachingAuthenticationProviderTest {
+
+    private static final String USER = "john.smith@ebi.ac.uk";
+    private static final String PASSWORD = "secret";
+
+    private AuthenticationProvider delegate;
+    private CachingAuthenticationProvider provider;
+
+    @Before
+    public void setUp() {
+        delegate = mock(AuthenticationProvider.class);
+        when(delegate.authenticate(any(Authentication.class))).thenAnswer(invocation -> {
+            Authentication authentication = (Authentication) invocation.getArguments()[0];
+            if (!PASSWORD.equals(authentication.getCredentials())) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+            return new UsernamePasswordAuthenticationToken(authentication.getName(), authentication.getCredentials(),
+                    AuthorityUtils.createAuthorityList("SUBMITTER"));
+        });
+        provider = new CachingAuthenticationProvider(delegate, new CacheRegistry(), 300);
+    }
+
+    @Test
+    public void successfulAuthenticationIsCached() {
+        Authentication first = provider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+        Authentication second = provider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+
+        assertTrue(second.isAuthenticated());
+        assertEquals(USER, second.getName());
+        assertEquals(first, second);
+        assertNull(second.getCredentials());
+        verify(delegate, times(1)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void failedAuthenticationIsNotCached() {
+        provider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+        for (int i = 0; i < 2; i++) {
+            try {
+                provider.authenticate(new UsernamePasswordAuthenticationToken(USER, "wrong"));
+            } catch (BadCredentialsException e) {
+                // expected
+            }
+        }
+        verify(delegate, times(2)).authenticate(argThat(new CredentialsMatcher("wrong")));
+    }
+
+    @Test
+    public void invalidateForcesNewAuthentication() {
+        provider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+        provider.invalidate(USER);
+        provider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+
+        verify(delegate, times(2)).authenticate(any(Authentication.class));
+    }
+
+    private static class CredentialsMatcher extends org.mockito.ArgumentMatcher<Authentication> {
+        private final String credentials;
+
+        private CredentialsMatcher(String credentials) {
+            this.credentials = credentials;
+        }
+
+        @Override
+        public boolean matches(Object argument) {
+            return argument instanceof Authentication && credentials.equals(((Authentication) argument).getCredentials());
+        }
+    }
+}
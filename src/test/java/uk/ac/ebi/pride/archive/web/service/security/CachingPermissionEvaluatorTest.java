@@ -0,0 +1,90 @@
+package uk.ac.ebi.pride.archive.web.service.security;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import uk.ac.ebi.pride.archive.web.service.cache.CacheRegistry;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that access decisions are cached per target for public data and per user otherwise.
+ */
+public class CachingPermissionEvaluatorTest {
+
+    private static final String PERMISSION = "isAccessibleProjectAccession";
+    private static final String PUBLIC_PROJECT = "PXD000001";
+    private static final String PRIVATE_PROJECT = "PXD000002";
+
+    private static final Authentication OWNER = new UsernamePasswordAuthenticationToken("owner@ebi.ac.uk", null,
+            AuthorityUtils.createAuthorityList("SUBMITTER"));
+    private static final Authentication OTHER = new UsernamePasswordAuthenticationToken("other@ebi.ac.uk", null,
+            AuthorityUtils.createAuthorityList("SUBMITTER"));
+
+    private PermissionEvaluator delegate;
+    private CachingPermissionEvaluator evaluator;
+
+    @Before
+    public void setUp() {
+        delegate = mock(PermissionEvaluator.class);
+        when(delegate.hasPermission(any(Authentication.class), eq(PUBLIC_PROJECT), eq(PERMISSION))).thenReturn(true);
+        when(delegate.hasPermission(eq(OWNER), eq(PRIVATE_PROJECT), eq(PERMISSION))).thenReturn(true);
+        evaluator = new CachingPermissionEvaluator(delegate, new CacheRegistry());
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void publicDecisionIsSharedByAllUsers() {
+        assertTrue(evaluator.hasPermission(OWNER, PUBLIC_PROJECT, PERMISSION));
+        assertTrue(evaluator.hasPermission(OTHER, PUBLIC_PROJECT, PERMISSION));
+        assertTrue(evaluator.hasPermission(null, PUBLIC_PROJECT, PERMISSION));
+
+        verify(delegate, times(1)).hasPermission(any(Authentication.class), eq(PUBLIC_PROJECT), eq(PERMISSION));
+    }
+
+    @Test
+    public void privateDecisionIsCachedPerUser() {
+        assertTrue(evaluator.hasPermission(OWNER, PRIVATE_PROJECT, PERMISSION));
+        assertTrue(evaluator.hasPermission(OWNER, PRIVATE_PROJECT, PERMISSION));
+        assertFalse(evaluator.hasPermission(OTHER, PRIVATE_PROJECT, PERMISSION));
+        assertFalse(evaluator.hasPermission(OTHER, PRIVATE_PROJECT, PERMISSION));
+
+        verify(delegate, times(1)).hasPermission(eq(OWNER), eq(PRIVATE_PROJECT), eq(PERMISSION));
+        verify(delegate, times(1)).hasPermission(eq(OTHER), eq(PRIVATE_PROJECT), eq(PERMISSION));
+    }
+
+    @Test
+    public void decisionIsMemoizedWithinRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertTrue(evaluator.hasPermission(OWNER, PRIVATE_PROJECT, PERMISSION));
+        // even once the shared caches have been emptied
+        evaluator = new CachingPermissionEvaluator(delegate, new CacheRegistry());
+        assertTrue(evaluator.hasPermission(OWNER, PRIVATE_PROJECT, PERMISSION));
+
+        verify(delegate, times(1)).hasPermission(eq(OWNER), eq(PRIVATE_PROJECT), eq(PERMISSION));
+    }
+
+    @Test
+    public void domainObjectsAreNotCached() {
+        Object project = new Object();
+        evaluator.hasPermission(OWNER, project, "isAccessibleProject");
+        evaluator.hasPermission(OWNER, project, "isAccessibleProject");
+
+        verify(delegate, times(2)).hasPermission(OWNER, project, "isAccessibleProject");
+    }
+}
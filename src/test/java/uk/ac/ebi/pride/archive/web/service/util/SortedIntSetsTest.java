@@ -0,0 +1,39 @@
+package uk.ac.ebi.pride.archive.web.service.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Tests the set operations on sorted int arrays.
+ */
+public class SortedIntSetsTest {
+
+    private static final int[] A = {1, 3, 5, 7, 9};
+    private static final int[] B = {2, 3, 4, 9, 11};
+
+    @Test
+    public void ofSortsAndRemovesDuplicates() {
+        assertArrayEquals(new int[]{1, 2, 5}, SortedIntSets.of(new int[]{5, 1, 2, 5, 1}));
+        assertArrayEquals(new int[0], SortedIntSets.of(new int[0]));
+    }
+
+    @Test
+    public void intersection() {
+        assertArrayEquals(new int[]{3, 9}, SortedIntSets.intersection(A, B));
+        assertArrayEquals(new int[0], SortedIntSets.intersection(A, new int[0]));
+    }
+
+    @Test
+    public void union() {
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 7, 9, 11}, SortedIntSets.union(A, B));
+        assertArrayEquals(A, SortedIntSets.union(A, new int[0]));
+    }
+
+    @Test
+    public void difference() {
+        assertArrayEquals(new int[]{1, 5, 7}, SortedIntSets.difference(A, B));
+        assertArrayEquals(new int[]{2, 4, 11}, SortedIntSets.difference(B, A));
+        assertArrayEquals(new int[0], SortedIntSets.difference(A, A));
+    }
+}
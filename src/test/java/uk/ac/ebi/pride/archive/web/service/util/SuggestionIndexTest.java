@@ -0,0 +1,74 @@
+package uk.ac.ebi.pride.archive.web.service.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the prefix lookups of the suggestion index.
+ */
+public class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @Before
+    public void setUp() {
+        SuggestionIndex.Builder builder = new SuggestionIndex.Builder(100);
+        builder.add("Homo sapiens (Human)", "species", 5000);
+        builder.add("Mus musculus (Mouse)", "species", 2000);
+        builder.add("Human proteome draft", "title", 1);
+        builder.add("brain", "tissue", 300);
+        builder.add("Brain ", "tissue", 20);
+        index = builder.build();
+    }
+
+    @Test
+    public void matchesWordStartsIgnoringCase() {
+        assertEquals(texts("Homo sapiens (Human)", "Human proteome draft"), texts(index.lookup("hum", 10)));
+        assertEquals(texts("Homo sapiens (Human)", "Human proteome draft"), texts(index.lookup("HU", 10)));
+        assertEquals(texts("Mus musculus (Mouse)"), texts(index.lookup("mouse", 10)));
+        assertEquals(texts("Human proteome draft"), texts(index.lookup("proteome d", 10)));
+        assertTrue(index.lookup("rat", 10).isEmpty());
+        assertTrue(index.lookup(" ", 10).isEmpty());
+    }
+
+    @Test
+    public void ordersByWeightAndLimits() {
+        assertEquals(texts("Homo sapiens (Human)"), texts(index.lookup("h", 1)));
+        assertEquals(texts("Homo sapiens (Human)", "Human proteome draft"), texts(index.lookup("h", 10)));
+        // duplicated values are merged
+        List<SuggestionIndex.Suggestion> brain = index.lookup("br", 10);
+        assertEquals(1, brain.size());
+        assertEquals(320, brain.get(0).getWeight());
+    }
+
+    @Test
+    public void boundsNumberOfKeys() {
+        SuggestionIndex.Builder builder = new SuggestionIndex.Builder(3);
+        assertTrue(builder.add("Homo sapiens", "species", 1));
+        assertFalse(builder.add("Mus musculus", "species", 1));
+        assertEquals(1, builder.build().size());
+    }
+
+    private static List<String> texts(String... texts) {
+        List<String> list = new ArrayList<>();
+        for (String text : texts) {
+            list.add(text);
+        }
+        return list;
+    }
+
+    private static List<String> texts(List<SuggestionIndex.Suggestion> suggestions) {
+        List<String> list = new ArrayList<>();
+        for (SuggestionIndex.Suggestion suggestion : suggestions) {
+            list.add(suggestion.getText());
+        }
+        return list;
+    }
+}